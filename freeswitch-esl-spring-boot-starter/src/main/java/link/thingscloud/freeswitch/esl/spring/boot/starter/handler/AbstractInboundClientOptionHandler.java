@@ -42,6 +42,11 @@ public abstract class AbstractInboundClientOptionHandler implements InboundClien
                 option.addEvents(event);
             }
         });
+        option.eventFilter()
+                .allowEvents(properties.getAllowEvents().toArray(new String[0]))
+                .denyEvents(properties.getDenyEvents().toArray(new String[0]))
+                .allowSubclasses(properties.getAllowEventSubclasses().toArray(new String[0]))
+                .denySubclasses(properties.getDenyEventSubclasses().toArray(new String[0]));
         intercept(option);
         return option;
     }
@@ -61,7 +66,21 @@ public abstract class AbstractInboundClientOptionHandler implements InboundClien
                 .readTimeoutSeconds(properties.getReadTimeoutSeconds())
                 .readerIdleTimeSeconds(properties.getReaderIdleTimeSeconds())
                 .defaultPassword(properties.getDefaultPassword())
+                .maxHeaderSize(properties.getMaxHeaderSize())
+                .maxBodySize(properties.getMaxBodySize())
+                .apiResponseChunkSize(properties.getApiResponseChunkSize())
+                .writeBufferLowWaterMark(properties.getWriteBufferLowWaterMark())
+                .writeBufferHighWaterMark(properties.getWriteBufferHighWaterMark())
+                .commandAdmission(properties.getCommandAdmission())
+                .commandAdmissionTimeoutMillis(properties.getCommandAdmissionTimeoutMillis())
+                .commandQueueCapacity(properties.getCommandQueueCapacity())
+                .commandTimeoutMillis(properties.getCommandTimeoutMillis())
+                .backgroundJobTimeoutMillis(properties.getBackgroundJobTimeoutMillis())
                 .disablePublicExecutor(properties.isDisablePublicExecutor())
+                .virtualThreads(properties.isVirtualThreads())
+                .retainEventBody(properties.isRetainEventBody())
+                .pooledEvents(properties.isPooledEvents())
+                .eventFormat(properties.getEventFormat())
                 .performance(properties.isPerformance())
                 .performanceCostTime(properties.getPerformanceCostTime())
                 .eventPerformance(properties.isEventPerformance())
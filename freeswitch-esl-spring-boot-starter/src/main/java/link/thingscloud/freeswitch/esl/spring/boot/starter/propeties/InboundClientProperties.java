@@ -17,6 +17,7 @@
 
 package link.thingscloud.freeswitch.esl.spring.boot.starter.propeties;
 
+import link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -42,12 +43,30 @@ public class InboundClientProperties {
     private int readTimeoutSeconds = 30;
     private int readerIdleTimeSeconds = 25;
     private String defaultPassword = "ClueCon";
+    private int maxHeaderSize = 8192;
+    private int maxBodySize = Integer.MAX_VALUE;
+    private int apiResponseChunkSize = 65536;
+    private int writeBufferLowWaterMark = 32 * 1024;
+    private int writeBufferHighWaterMark = 64 * 1024;
+    private CommandAdmission commandAdmission = CommandAdmission.UNBOUNDED;
+    private long commandAdmissionTimeoutMillis = 3000;
+    private int commandQueueCapacity = 1024;
+    private long commandTimeoutMillis = 0;
+    private long backgroundJobTimeoutMillis = 120000;
     private boolean disablePublicExecutor = false;
+    private boolean virtualThreads = false;
+    private boolean retainEventBody = false;
+    private boolean pooledEvents = false;
+    private String eventFormat = "plain";
     private boolean performance = false;
     private long performanceCostTime = 200;
     private boolean eventPerformance = false;
     private long eventPerformanceCostTime = 200;
     private List<String> events = new ArrayList<>();
+    private List<String> allowEvents = new ArrayList<>();
+    private List<String> denyEvents = new ArrayList<>();
+    private List<String> allowEventSubclasses = new ArrayList<>();
+    private List<String> denyEventSubclasses = new ArrayList<>();
     private List<ServerProperties> servers = new ArrayList<>();
 
 }
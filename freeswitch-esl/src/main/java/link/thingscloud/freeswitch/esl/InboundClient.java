@@ -18,12 +18,16 @@
 package link.thingscloud.freeswitch.esl;
 
 import link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion;
+import link.thingscloud.freeswitch.esl.inbound.CommandPipeline;
 import link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption;
 import link.thingscloud.freeswitch.esl.transport.CommandResponse;
 import link.thingscloud.freeswitch.esl.transport.SendEvent;
 import link.thingscloud.freeswitch.esl.transport.SendMsg;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.message.CommandTemplate;
 import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -73,9 +77,35 @@ public interface InboundClient extends InboundClientService {
      */
     EslMessage sendSyncApiCommand(String addr, String command, String arg);
 
+    /**
+     * Like {@link #sendSyncApiCommand(String, String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     * <p>
+     * No thread is parked while the command is in flight, whatever the number of commands in flight.
+     *
+     * @param addr    Esl server address
+     * @param command API command to send
+     * @param arg     command arguments
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} containing command results
+     */
+    CompletableFuture<EslMessage> sendApiCommandAsync(String addr, String command, String arg);
+
+    /**
+     * Like {@link #sendApiCommandAsync(String, String, String)} with a deadline kept by the I/O thread. Past the
+     * deadline the future fails with an {@link link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion},
+     * the late reply is discarded when it arrives.
+     *
+     * @param addr          Esl server address
+     * @param command       API command to send
+     * @param arg           command arguments
+     * @param timeoutMillis the deadline of the command, 0 for none
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} containing command results
+     */
+    CompletableFuture<EslMessage> sendApiCommandAsync(String addr, String command, String arg, long timeoutMillis);
+
     /**
      * Sends a FreeSWITCH API command to the server and blocks, waiting for an immediate response from the
-     * server.
+     * server, at most timeoutSeconds. The late reply of a command that timed out is discarded when it arrives.
      * <p>
      * The outcome of the command from the server is retured in an {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
      *
@@ -89,8 +119,8 @@ public interface InboundClient extends InboundClientService {
     EslMessage sendSyncApiCommand(String addr, String command, String arg, long timeoutSeconds) throws InboundTimeoutExcetion;
 
     /**
-     * Aync callback Sends a FreeSWITCH API command to the server and blocks, waiting for an immediate response from the
-     * server.
+     * Aync callback Sends a FreeSWITCH API command to the server, the consumer is called on the public executor
+     * when the response arrives, no thread waits for it in between.
      * <p>
      * The outcome of the command from the server is retured in an {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
      *
@@ -101,6 +131,91 @@ public interface InboundClient extends InboundClientService {
      */
     void sendSyncApiCommand(String addr, String command, String arg, Consumer<EslMessage> consumer);
 
+    /**
+     * Sends a FreeSWITCH API command made of a template to the server and blocks, waiting for an immediate
+     * response from the server. Only the arguments are encoded, the rest of the command was encoded with the template.
+     *
+     * @param addr     Esl server address
+     * @param template API command to send, such as {@code uuid_kill %s}
+     * @param args     one argument for each {@code %s} of the template
+     * @return an {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} containing command results
+     */
+    EslMessage sendSyncApiCommand(String addr, CommandTemplate template, String... args);
+
+    /**
+     * Like {@link #sendSyncApiCommand(String, CommandTemplate, String...)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr     Esl server address
+     * @param template API command to send, such as {@code uuid_kill %s}
+     * @param args     one argument for each {@code %s} of the template
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} containing command results
+     */
+    CompletableFuture<EslMessage> sendApiCommandAsync(String addr, CommandTemplate template, String... args);
+
+    /**
+     * Sends a FreeSWITCH API command to the server and blocks until the whole response has been received,
+     * handing each body line to the line consumer as soon as it arrives. Large responses, such as
+     * {@code show channels} or {@code xml_locate}, are never held in memory as a whole, see
+     * {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#apiResponseChunkSize(int)}.
+     * <p>
+     * The line consumer is called on the I/O thread and must not block.
+     *
+     * @param addr         Esl server address
+     * @param command      API command to send
+     * @param arg          command arguments
+     * @param lineConsumer receives each body line of the response
+     * @return an {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} with the response headers
+     */
+    EslMessage streamSyncApiCommand(String addr, String command, String arg, Consumer<String> lineConsumer);
+
+    /**
+     * Like {@link #streamSyncApiCommand(String, String, String, Consumer)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr         Esl server address
+     * @param command      API command to send
+     * @param arg          command arguments
+     * @param lineConsumer receives each body line of the response
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} with the response headers
+     */
+    CompletableFuture<EslMessage> streamApiCommandAsync(String addr, String command, String arg, Consumer<String> lineConsumer);
+
+    /**
+     * A batch of api, bgapi, sendmsg or sendevent commands for one server, written in a single flush
+     * when executed. Each command gets a future of its reply, the replies arrive in order without any
+     * command waiting for the round trip of the previous one.
+     *
+     * @param addr Esl server address
+     * @return a new, empty {@link link.thingscloud.freeswitch.esl.inbound.CommandPipeline}
+     */
+    CommandPipeline pipeline(String addr);
+
+    /**
+     * Whether commands to the server are written at once, false while more bytes than the write buffer
+     * high water mark wait to be written, see {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#commandAdmission()}.
+     *
+     * @param addr Esl server address
+     * @return false if the server is not connected.
+     */
+    boolean isWritable(String addr);
+
+    /**
+     * <p>pendingWriteBytes.</p>
+     *
+     * @param addr Esl server address
+     * @return the number of bytes waiting to be written to the server, 0 if the server is not connected.
+     */
+    long pendingWriteBytes(String addr);
+
+    /**
+     * <p>queuedCommands.</p>
+     *
+     * @param addr Esl server address
+     * @return the number of commands held back until the channel is writable, 0 if the server is not connected.
+     */
+    int queuedCommands(String addr);
+
     /**
      * Submit a FreeSWITCH API command to the server to be executed in background mode. A synchronous
      * response from the server provides a UUID to identify the job execution results. When the server
@@ -116,6 +231,17 @@ public interface InboundClient extends InboundClientService {
      */
     String sendAsyncApiCommand(String addr, String command, String arg);
 
+    /**
+     * Like {@link #sendAsyncApiCommand(String, String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr    Esl server address
+     * @param command API command to send
+     * @param arg     command arguments
+     * @return a future of the Job-UUID that the server will tag result event with.
+     */
+    CompletableFuture<String> sendBgApiCommandAsync(String addr, String command, String arg);
+
     /**
      * Aync callback Submit a FreeSWITCH API command to the server to be executed in background mode. A synchronous
      * response from the server provides a UUID to identify the job execution results. When the server
@@ -131,6 +257,56 @@ public interface InboundClient extends InboundClientService {
      */
     void sendAsyncApiCommand(String addr, String command, String arg, Consumer<String> consumer);
 
+    /**
+     * Submit a FreeSWITCH API command made of a template to the server to be executed in background mode,
+     * see {@link #sendAsyncApiCommand(String, String, String)}.
+     *
+     * @param addr     Esl server address
+     * @param template API command to send, such as {@code uuid_kill %s}
+     * @param args     one argument for each {@code %s} of the template
+     * @return String Job-UUID that the server will tag result event with.
+     */
+    String sendAsyncApiCommand(String addr, CommandTemplate template, String... args);
+
+    /**
+     * Like {@link #sendAsyncApiCommand(String, CommandTemplate, String...)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr     Esl server address
+     * @param template API command to send, such as {@code uuid_kill %s}
+     * @param args     one argument for each {@code %s} of the template
+     * @return a future of the Job-UUID that the server will tag result event with.
+     */
+    CompletableFuture<String> sendBgApiCommandAsync(String addr, CommandTemplate template, String... args);
+
+    /**
+     * Submit a FreeSWITCH API command to be executed in background mode, the future completes with the
+     * BACKGROUND_JOB event carrying its result. The Job-UUID is chosen by the client, so the job is registered
+     * before the command is sent.
+     * <p>
+     * The client must be subscribed to BACKGROUND_JOB events. The future completes with a detached copy of the
+     * event, see {@link EslEvent#copy()}, which the caller does not release. The future fails if the event did not
+     * arrive within
+     * {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#backgroundJobTimeoutMillis()}.
+     *
+     * @param addr    Esl server address
+     * @param command API command to send
+     * @param arg     command arguments
+     * @return a future of the BACKGROUND_JOB {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent}
+     */
+    CompletableFuture<EslEvent> sendBackgroundJobAsync(String addr, String command, String arg);
+
+    /**
+     * Like {@link #sendBackgroundJobAsync(String, String, String)} with the given Job-UUID.
+     *
+     * @param addr    Esl server address
+     * @param command API command to send
+     * @param arg     command arguments
+     * @param jobUuid the Job-UUID of the job, null to let the client choose one
+     * @return a future of the BACKGROUND_JOB {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent}
+     */
+    CompletableFuture<EslEvent> sendBackgroundJobAsync(String addr, String command, String arg, String jobUuid);
+
     /**
      * Set the current event subscription for this connection to the server.  Examples of the events
      * argument are:
@@ -143,15 +319,26 @@ public interface InboundClient extends InboundClientService {
      * <p>
      * Subsequent calls to this method replaces any previous subscriptions that were set.
      * </p>
-     * Note: current implementation can only process 'plain' events.
+     * Note: current implementation can process 'plain', 'json' and 'xml' events.
      *
      * @param addr   Esl server address
-     * @param format can be { plain | xml }
+     * @param format can be { plain | json | xml }
      * @param events { all | space separated list of events }
      * @return a {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
      */
     CommandResponse setEventSubscriptions(String addr, String format, String events);
 
+    /**
+     * Like {@link #setEventSubscriptions(String, String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr   Esl server address
+     * @param format can be { plain | json | xml }
+     * @param events { all | space separated list of events }
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> setEventSubscriptionsAsync(String addr, String format, String events);
+
     /**
      * Cancel any existing event subscription.
      *
@@ -160,6 +347,15 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse cancelEventSubscriptions(String addr);
 
+    /**
+     * Like {@link #cancelEventSubscriptions(String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr Esl server address
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> cancelEventSubscriptionsAsync(String addr);
+
     /**
      * <p>
      * Add an event filter to the current set of event filters on this connection. Any of the event headers
@@ -185,6 +381,17 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse addEventFilter(String addr, String eventHeader, String valueToFilter);
 
+    /**
+     * Like {@link #addEventFilter(String, String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr          Esl server address
+     * @param eventHeader   to filter on
+     * @param valueToFilter the value to match
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> addEventFilterAsync(String addr, String eventHeader, String valueToFilter);
+
     /**
      * Delete an event filter from the current set of event filters on this connection.  See
      * {@link link.thingscloud.freeswitch.esl.InboundClient#addEventFilter}
@@ -196,6 +403,17 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse deleteEventFilter(String addr, String eventHeader, String valueToFilter);
 
+    /**
+     * Like {@link #deleteEventFilter(String, String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr          Esl server address
+     * @param eventHeader   to remove
+     * @param valueToFilter to remove
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> deleteEventFilterAsync(String addr, String eventHeader, String valueToFilter);
+
     /**
      * Send a {@link link.thingscloud.freeswitch.esl.transport.SendMsg} command to FreeSWITCH.  This client requires that the {@link link.thingscloud.freeswitch.esl.transport.SendMsg}
      * has a call UUID parameter.
@@ -208,6 +426,16 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse sendEvent(String addr, SendEvent sendEvent);
 
+    /**
+     * Like {@link #sendEvent(String, SendEvent)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr      Esl server address
+     * @param sendEvent a {@link link.thingscloud.freeswitch.esl.transport.SendEvent} Event
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> sendEventAsync(String addr, SendEvent sendEvent);
+
     /**
      * Send a {@link link.thingscloud.freeswitch.esl.transport.SendMsg} command to FreeSWITCH.  This client requires that the {@link link.thingscloud.freeswitch.esl.transport.SendMsg}
      * has a call UUID parameter.
@@ -220,6 +448,37 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse sendMessage(String addr, SendMsg sendMsg);
 
+    /**
+     * Like {@link #sendMessage(String, SendMsg)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr    Esl server address
+     * @param sendMsg a {@link link.thingscloud.freeswitch.esl.transport.SendMsg} with call UUID
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> sendMessageAsync(String addr, SendMsg sendMsg);
+
+    /**
+     * Send a sendmsg command made of a template, see {@link link.thingscloud.freeswitch.esl.transport.SendMsg#toTemplate()}.
+     *
+     * @param addr     Esl server address
+     * @param template a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} of a sendmsg command
+     * @param args     one argument for each {@code %s} of the template, such as the call UUID
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CommandResponse sendMessage(String addr, CommandTemplate template, String... args);
+
+    /**
+     * Like {@link #sendMessage(String, CommandTemplate, String...)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr     Esl server address
+     * @param template a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} of a sendmsg command
+     * @param args     one argument for each {@code %s} of the template, such as the call UUID
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> sendMessageAsync(String addr, CommandTemplate template, String... args);
+
     /**
      * Enable log output.
      *
@@ -229,6 +488,16 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse setLoggingLevel(String addr, String level);
 
+    /**
+     * Like {@link #setLoggingLevel(String, String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr  Esl server address
+     * @param level using the same values as in console.conf
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> setLoggingLevelAsync(String addr, String level);
+
     /**
      * Disable any logging previously enabled with setLogLevel().
      *
@@ -237,6 +506,15 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse cancelLogging(String addr);
 
+    /**
+     * Like {@link #cancelLogging(String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr Esl server address
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> cancelLoggingAsync(String addr);
+
     /**
      * Close the socket connection
      *
@@ -245,6 +523,15 @@ public interface InboundClient extends InboundClientService {
      */
     CommandResponse close(String addr);
 
+    /**
+     * Like {@link #close(String)}, without blocking: the future completes on the I/O thread when the reply arrives,
+     * dependent actions must not block.
+     *
+     * @param addr Esl server address
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.CommandResponse} with the server's response.
+     */
+    CompletableFuture<CommandResponse> closeAsync(String addr);
+
     /**
      * Close the socket connection
      *
@@ -33,4 +33,12 @@ public class EslConstant {
      * Constant <code>PLAIN="plain"</code>
      */
     public static final String PLAIN = "plain";
+    /**
+     * Constant <code>JSON="json"</code>
+     */
+    public static final String JSON = "json";
+    /**
+     * Constant <code>XML="xml"</code>
+     */
+    public static final String XML = "xml";
 }
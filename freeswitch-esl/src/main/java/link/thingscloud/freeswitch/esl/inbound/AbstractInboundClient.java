@@ -59,6 +59,8 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
 
     private final Map<String, InboundChannelHandler> handlerTable = new HashMap<>(32);
 
+    final BackgroundJobRegistry backgroundJobs = new BackgroundJobRegistry();
+
     AbstractInboundClient(InboundClientOption option) {
         super(option);
     }
@@ -112,6 +114,7 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
             }
         });
         workerGroup.shutdownGracefully();
+        backgroundJobs.close();
     }
 
     /**
@@ -136,6 +139,7 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
     @Override
     public void onChannelClosed(String remoteAddr) {
         handlerTable.remove(remoteAddr);
+        backgroundJobs.failAll(remoteAddr);
         option().serverOptions().forEach(serverOption -> {
             if (StringUtils.equals(serverOption.addr(), remoteAddr)) {
                 // 连接监听
@@ -173,7 +177,7 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
                         for (String event : option().events()) {
                             sb.append(event).append(" ");
                         }
-                        setEventSubscriptions(addr, "plain", sb.toString());
+                        setEventSubscriptions(addr, option().eventFormat(), sb.toString());
                     }
                 } else {
                     serverOption.state(ConnectState.AUTHED_FAILED);
@@ -189,6 +193,11 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
      */
     @Override
     public void handleEslEvent(String addr, EslEvent event) {
+        // read once per event, not once per listener
+        final long eventTime = option().eventPerformance() ? event.getEventDateTimestamp() / 1000 : 0L;
+        if (StringUtils.equals(event.getEventName(), EslConstant.BACKGROUND_JOB)) {
+            backgroundJobs.complete(event);
+        }
         option().listeners().forEach(listener -> {
             long start = 0L;
             if (option().performance()) {
@@ -197,9 +206,9 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
             if (option().eventPerformance()) {
                 long cost = 0L;
                 if (start > 0L) {
-                    cost = start - (event.getEventDateTimestamp() / 1000);
+                    cost = start - eventTime;
                 } else {
-                    cost = System.currentTimeMillis() - (event.getEventDateTimestamp() / 1000);
+                    cost = System.currentTimeMillis() - eventTime;
                 }
                 if (cost > option().eventPerformanceCostTime()) {
                     log.warn("[event performance] received esl event diff time : {}ms, event is blocked.", cost);
@@ -266,6 +275,33 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
         return handler;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWritable(String addr) {
+        InboundChannelHandler handler = handlerTable.get(addr);
+        return handler != null && handler.isWritable();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long pendingWriteBytes(String addr) {
+        InboundChannelHandler handler = handlerTable.get(addr);
+        return handler == null ? 0 : handler.pendingWriteBytes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int queuedCommands(String addr) {
+        InboundChannelHandler handler = handlerTable.get(addr);
+        return handler == null ? 0 : handler.queuedCommands();
+    }
+
     private void addServerOptionListener() {
         option().serverOptionListener(new ServerOptionListener() {
             @Override
@@ -293,7 +329,7 @@ abstract class AbstractInboundClient extends AbstractNettyInboundClient implemen
                 for (String event : list) {
                     sb.append(event).append(" ");
                 }
-                option().serverOptions().forEach(serverOption -> publicExecutor.execute(() -> setEventSubscriptions(serverOption.addr(), "plain", sb.toString())));
+                option().serverOptions().forEach(serverOption -> publicExecutor.execute(() -> setEventSubscriptions(serverOption.addr(), option().eventFormat(), sb.toString())));
             }
 
             @Override
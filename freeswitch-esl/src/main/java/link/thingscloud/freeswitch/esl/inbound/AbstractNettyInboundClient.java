@@ -22,10 +22,10 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.concurrent.DefaultThreadFactory;
@@ -33,7 +33,9 @@ import link.thingscloud.freeswitch.esl.InboundClientService;
 import link.thingscloud.freeswitch.esl.inbound.handler.InboundChannelHandler;
 import link.thingscloud.freeswitch.esl.inbound.listener.ChannelEventListener;
 import link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommandEncoder;
 import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +47,8 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
  */
 abstract class AbstractNettyInboundClient implements ChannelEventListener, InboundClientService {
 
+    private static final EslCommandEncoder ENCODER = new EslCommandEncoder();
+
     final Bootstrap bootstrap;
     final EventLoopGroup workerGroup;
     final ExecutorService publicExecutor;
@@ -54,12 +58,25 @@ abstract class AbstractNettyInboundClient implements ChannelEventListener, Inbou
     final Logger log = LoggerFactory.getLogger(getClass());
 
     AbstractNettyInboundClient(InboundClientOption option) {
+        // checked here as the marks may be set in either order
+        if (option.writeBufferLowWaterMark() > option.writeBufferHighWaterMark()) {
+            throw new IllegalArgumentException("writeBufferLowWaterMark " + option.writeBufferLowWaterMark()
+                    + " must not be greater than writeBufferHighWaterMark " + option.writeBufferHighWaterMark());
+        }
         this.option = option;
 
         bootstrap = new Bootstrap();
 
-        publicExecutor = new ScheduledThreadPoolExecutor(option.publicExecutorThread(),
-                new DefaultThreadFactory("publicExecutor", true));
+        if (option.virtualThreads() && VirtualThreads.isSupported()) {
+            // blocking listeners park their virtual thread instead of holding one of a few pool threads
+            publicExecutor = VirtualThreads.newThreadPerTaskExecutor("publicExecutor");
+        } else {
+            if (option.virtualThreads()) {
+                log.warn("virtual threads need Java 21 or later, publicExecutor falls back to {} threads", option.publicExecutorThread());
+            }
+            publicExecutor = new ScheduledThreadPoolExecutor(option.publicExecutorThread(),
+                    new DefaultThreadFactory("publicExecutor", true));
+        }
 
         workerGroup = new NioEventLoopGroup(option.workerGroupThread());
         bootstrap.group(workerGroup)
@@ -68,19 +85,30 @@ abstract class AbstractNettyInboundClient implements ChannelEventListener, Inbou
                 .option(ChannelOption.SO_KEEPALIVE, false)
                 .option(ChannelOption.SO_SNDBUF, option.sndBufSize())
                 .option(ChannelOption.SO_RCVBUF, option.rcvBufSize())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(option.writeBufferLowWaterMark(),
+                        option.writeBufferHighWaterMark()))
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
                         ChannelPipeline pipeline = ch.pipeline();
-                        pipeline.addLast("encoder", new StringEncoder());
-                        pipeline.addLast("decoder", new EslFrameDecoder(8192));
+                        pipeline.addLast("encoder", ENCODER);
+                        pipeline.addLast("decoder", new EslFrameDecoder(option.maxHeaderSize())
+                                .maxBodySize(option.maxBodySize())
+                                .apiResponseChunkSize(option.apiResponseChunkSize())
+                                .retainEventBody(option.retainEventBody())
+                                .eventFilter(option.eventFilter())
+                                .pooled(option.pooledEvents()));
                         if (option.readerIdleTimeSeconds() > 0 && option.readTimeoutSeconds() > 0
                                 && option.readerIdleTimeSeconds() < option.readTimeoutSeconds()) {
                             pipeline.addLast("idleState", new IdleStateHandler(option.readerIdleTimeSeconds(), 0, 0));
                             pipeline.addLast("readTimeout", new ReadTimeoutHandler(option.readTimeoutSeconds()));
                         }
                         // now the inbound client logic
-                        pipeline.addLast("clientHandler", new InboundChannelHandler(AbstractNettyInboundClient.this, publicExecutor, option.disablePublicExecutor()));
+                        pipeline.addLast("clientHandler", new InboundChannelHandler(AbstractNettyInboundClient.this, publicExecutor,
+                                option.disablePublicExecutor(), option.pooledEvents())
+                                .commandAdmission(option.commandAdmission(), option.commandAdmissionTimeoutMillis(),
+                                        option.commandQueueCapacity())
+                                .commandTimeoutMillis(option.commandTimeoutMillis()));
                     }
                 });
     }
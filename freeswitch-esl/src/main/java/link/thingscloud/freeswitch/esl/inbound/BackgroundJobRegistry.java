@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import link.thingscloud.freeswitch.esl.exception.InboundClientException;
+import link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventHeaderNames;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bgapi jobs waiting for their {@code BACKGROUND_JOB} event, by Job-UUID.
+ * <p>
+ * Each job expires on a wheel timer, so thousands of jobs in flight cost no thread and no scan. A job whose
+ * event never comes, because the server went away or the event was not subscribed, fails its future.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+final class BackgroundJobRegistry {
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("backgroundJobTimer", true),
+            100, TimeUnit.MILLISECONDS);
+
+    /**
+     * Registers the job before its event can arrive.
+     *
+     * @param addr          the server running the job
+     * @param jobUuid       the Job-UUID of the bgapi command
+     * @param timeoutMillis the longest to wait for the event, 0 for no limit
+     * @return a future of a detached copy of the BACKGROUND_JOB event, see {@link EslEvent#copy()}
+     */
+    CompletableFuture<EslEvent> register(String addr, String jobUuid, long timeoutMillis) {
+        Job job = new Job(addr);
+        if (jobs.putIfAbsent(jobUuid, job) != null) {
+            job.future.completeExceptionally(new InboundClientException("duplicate Job-UUID : " + jobUuid));
+            return job.future;
+        }
+        if (timeoutMillis > 0) {
+            job.timeout = timer.newTimeout(timeout -> {
+                if (jobs.remove(jobUuid, job)) {
+                    job.future.completeExceptionally(new InboundTimeoutExcetion("no BACKGROUND_JOB event after "
+                            + timeoutMillis + " ms, addr : " + addr + ", Job-UUID : " + jobUuid));
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return job.future;
+    }
+
+    /**
+     * Fails the job, its command could not be sent.
+     *
+     * @param jobUuid the Job-UUID of the bgapi command
+     * @param cause   the failure
+     */
+    void fail(String jobUuid, Throwable cause) {
+        Job job = jobs.remove(jobUuid);
+        if (job != null) {
+            job.cancelTimeout();
+            job.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Completes the job of the event, if any.
+     *
+     * @param event a BACKGROUND_JOB event
+     * @return true if a job was waiting for the event
+     */
+    boolean complete(EslEvent event) {
+        String jobUuid = event.getEventHeader(EslEventHeaderNames.JOB_UUID);
+        Job job = jobUuid == null ? null : jobs.remove(jobUuid);
+        if (job == null) {
+            return false;
+        }
+        job.cancelTimeout();
+        // the dispatcher releases the event once the listeners are done, the caller gets a copy it need not release
+        job.future.complete(event.copy());
+        return true;
+    }
+
+    /**
+     * Fails the jobs of a server, their events will not come on a new connection.
+     *
+     * @param addr the server
+     */
+    void failAll(String addr) {
+        jobs.forEach((jobUuid, job) -> {
+            if (job.addr.equals(addr) && jobs.remove(jobUuid, job)) {
+                job.cancelTimeout();
+                job.future.completeExceptionally(new InboundClientException("channel closed, addr : " + addr + ", Job-UUID : " + jobUuid));
+            }
+        });
+    }
+
+    /**
+     * <p>size.</p>
+     *
+     * @return the number of jobs waiting for their event.
+     */
+    int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Fails all the jobs and stops the timer.
+     */
+    void close() {
+        jobs.keySet().forEach(jobUuid -> fail(jobUuid, new InboundClientException("inbound client shutdown")));
+        timer.stop();
+    }
+
+    private static class Job {
+        private final String addr;
+        private final CompletableFuture<EslEvent> future = new CompletableFuture<>();
+        private volatile Timeout timeout;
+
+        Job(String addr) {
+            this.addr = addr;
+        }
+
+        void cancelTimeout() {
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound;
+
+import link.thingscloud.freeswitch.esl.inbound.handler.InboundChannelHandler;
+import link.thingscloud.freeswitch.esl.transport.SendEvent;
+import link.thingscloud.freeswitch.esl.transport.SendMsg;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommand;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A batch of commands for one connection, sent in a single flush by {@link #execute()}.
+ * <p>
+ * FreeSWITCH replies to the commands of a connection in order, so the commands do not wait for each
+ * other's round trip. A pipeline is not thread safe, it is meant to be filled and executed by one thread.
+ * <pre>
+ *   List&lt;CompletableFuture&lt;EslMessage&gt;&gt; replies = inboundClient.pipeline(addr)
+ *           .api("uuid_setvar", uuid + " campaign_id 42")
+ *           .sendMessage(new SendMsg(uuid).addCallCommand("hangup").addHangupCause("NORMAL_CLEARING"))
+ *           .execute();
+ * </pre>
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ * @see link.thingscloud.freeswitch.esl.InboundClient#pipeline(String)
+ */
+public class CommandPipeline {
+
+    private final InboundChannelHandler handler;
+    private final List<EslCommand> commands = new ArrayList<>();
+
+    CommandPipeline(InboundChannelHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Queues {@code api command arg}.
+     *
+     * @param command API command to send
+     * @param arg     command arguments
+     * @return this
+     */
+    public CommandPipeline api(String command, String arg) {
+        return command(EslCommand.api(command, arg));
+    }
+
+    /**
+     * Queues {@code bgapi command arg}, the reply carries the Job-UUID header.
+     *
+     * @param command API command to send
+     * @param arg     command arguments
+     * @return this
+     */
+    public CommandPipeline bgapi(String command, String arg) {
+        return command(EslCommand.bgapi(command, arg));
+    }
+
+    /**
+     * Queues a {@code sendmsg} command.
+     *
+     * @param sendMsg a {@link link.thingscloud.freeswitch.esl.transport.SendMsg} object.
+     * @return this
+     */
+    public CommandPipeline sendMessage(SendMsg sendMsg) {
+        return command(EslCommand.of(sendMsg.getMsgLines()));
+    }
+
+    /**
+     * Queues a {@code sendevent} command.
+     *
+     * @param sendEvent a {@link link.thingscloud.freeswitch.esl.transport.SendEvent} object.
+     * @return this
+     */
+    public CommandPipeline sendEvent(SendEvent sendEvent) {
+        return command(EslCommand.of(sendEvent.getMsgLines()));
+    }
+
+    /**
+     * Queues any other command.
+     *
+     * @param command a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     * @return this
+     */
+    public CommandPipeline command(EslCommand command) {
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * <p>size.</p>
+     *
+     * @return the number of queued commands.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Sends the queued commands in a single flush and empties the pipeline.
+     * <p>
+     * The futures complete on the I/O thread, dependent actions must not block.
+     *
+     * @return a future of the reply to each command, in the order the commands were queued
+     */
+    public List<CompletableFuture<EslMessage>> execute() {
+        List<CompletableFuture<EslMessage>> futures = handler.sendPipelinedCommands(new ArrayList<>(commands));
+        commands.clear();
+        return futures;
+    }
+}
@@ -25,11 +25,17 @@ import link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption;
 import link.thingscloud.freeswitch.esl.transport.CommandResponse;
 import link.thingscloud.freeswitch.esl.transport.SendEvent;
 import link.thingscloud.freeswitch.esl.transport.SendMsg;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.message.CommandTemplate;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommand;
 import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
 import link.thingscloud.freeswitch.esl.util.StringUtils;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
@@ -55,17 +61,26 @@ public class NettyInboundClient extends AbstractInboundClient {
     @Override
     public EslMessage sendSyncApiCommand(String addr, String command, String arg) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        StringBuilder sb = new StringBuilder();
-        if (command != null && !command.isEmpty()) {
-            sb.append("api ");
-            sb.append(command);
-        }
-        if (arg != null && !arg.isEmpty()) {
-            sb.append(' ');
-            sb.append(arg);
-        }
         log.debug("sendSyncApiCommand addr : {}, command : {}, arg : {}", addr, command, arg);
-        return handler.sendSyncSingleLineCommand(sb.toString());
+        return handler.sendSyncCommand(EslCommand.api(command, arg), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslMessage> sendApiCommandAsync(String addr, String command, String arg) {
+        log.debug("sendApiCommandAsync addr : {}, command : {}, arg : {}", addr, command, arg);
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.api(command, arg), null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslMessage> sendApiCommandAsync(String addr, String command, String arg, long timeoutMillis) {
+        log.debug("sendApiCommandAsync addr : {}, command : {}, arg : {}, timeoutMillis : {}", addr, command, arg, timeoutMillis);
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.api(command, arg), null, timeoutMillis));
     }
 
     /**
@@ -74,7 +89,8 @@ public class NettyInboundClient extends AbstractInboundClient {
     @Override
     public EslMessage sendSyncApiCommand(String addr, String command, String arg, long timeoutSeconds) throws InboundTimeoutExcetion {
         try {
-            return publicExecutor.submit(() -> sendSyncApiCommand(addr, command, arg)).get(timeoutSeconds, TimeUnit.SECONDS);
+            InboundChannelHandler handler = getAuthedHandler(addr);
+            return handler.sendSyncCommand(EslCommand.api(command, arg), null, TimeUnit.SECONDS.toMillis(timeoutSeconds));
         } catch (Exception e) {
             throw new InboundTimeoutExcetion(String.format("sendSyncApiCommand addr : %s, command : %s, arg : %s, timeoutSeconds : %s", addr, command, arg, timeoutSeconds), e);
         }
@@ -85,12 +101,57 @@ public class NettyInboundClient extends AbstractInboundClient {
      */
     @Override
     public void sendSyncApiCommand(String addr, String command, String arg, Consumer<EslMessage> consumer) {
-        publicExecutor.execute(() -> {
-            EslMessage msg = sendSyncApiCommand(addr, command, arg);
+        sendApiCommandAsync(addr, command, arg).thenAcceptAsync(msg -> {
             if (consumer != null) {
                 consumer.accept(msg);
             }
-        });
+        }, publicExecutor).whenComplete((result, cause) -> logFailure("sendSyncApiCommand", addr, command, arg, cause));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslMessage sendSyncApiCommand(String addr, CommandTemplate template, String... args) {
+        InboundChannelHandler handler = getAuthedHandler(addr);
+        log.debug("sendSyncApiCommand addr : {}, template : {}", addr, template);
+        return handler.sendSyncCommand(EslCommand.api(template, args), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslMessage> sendApiCommandAsync(String addr, CommandTemplate template, String... args) {
+        log.debug("sendApiCommandAsync addr : {}, template : {}", addr, template);
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.api(template, args), null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslMessage streamSyncApiCommand(String addr, String command, String arg, Consumer<String> lineConsumer) {
+        InboundChannelHandler handler = getAuthedHandler(addr);
+        log.debug("streamSyncApiCommand addr : {}, command : {}, arg : {}", addr, command, arg);
+        return handler.sendSyncCommand(EslCommand.api(command, arg), lineConsumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslMessage> streamApiCommandAsync(String addr, String command, String arg, Consumer<String> lineConsumer) {
+        log.debug("streamApiCommandAsync addr : {}, command : {}, arg : {}", addr, command, arg);
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.api(command, arg), lineConsumer));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CommandPipeline pipeline(String addr) {
+        return new CommandPipeline(getAuthedHandler(addr));
     }
 
     /**
@@ -99,18 +160,58 @@ public class NettyInboundClient extends AbstractInboundClient {
     @Override
     public String sendAsyncApiCommand(String addr, String command, String arg) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        StringBuilder sb = new StringBuilder();
-        if (command != null && !command.isEmpty()) {
-            sb.append("bgapi ");
-            sb.append(command);
-        }
-        if (arg != null && !arg.isEmpty()) {
-            sb.append(' ');
-            sb.append(arg);
-        }
+        return handler.sendAsyncCommand(EslCommand.bgapi(command, arg));
 
-        return handler.sendAsyncCommand(sb.toString());
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> sendBgApiCommandAsync(String addr, String command, String arg) {
+        return sendAsync(addr, handler -> handler.sendBackgroundCommand(EslCommand.bgapi(command, arg)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String sendAsyncApiCommand(String addr, CommandTemplate template, String... args) {
+        InboundChannelHandler handler = getAuthedHandler(addr);
+        return handler.sendAsyncCommand(EslCommand.bgapi(template, args));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> sendBgApiCommandAsync(String addr, CommandTemplate template, String... args) {
+        return sendAsync(addr, handler -> handler.sendBackgroundCommand(EslCommand.bgapi(template, args)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslEvent> sendBackgroundJobAsync(String addr, String command, String arg) {
+        return sendBackgroundJobAsync(addr, command, arg, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<EslEvent> sendBackgroundJobAsync(String addr, String command, String arg, String jobUuid) {
+        // chosen here rather than by the server, so the job is registered before its event can arrive
+        String uuid = jobUuid == null ? UUID.randomUUID().toString() : jobUuid;
+        CompletableFuture<EslEvent> future = backgroundJobs.register(addr, uuid, option().backgroundJobTimeoutMillis());
+        sendAsync(addr, handler -> handler.sendBackgroundCommand(EslCommand.bgapi(command, arg, uuid)))
+                .whenComplete((serverJobUuid, cause) -> {
+                    if (cause != null) {
+                        backgroundJobs.fail(uuid, cause);
+                    }
+                });
+        return future;
     }
 
     /**
@@ -118,13 +219,11 @@ public class NettyInboundClient extends AbstractInboundClient {
      */
     @Override
     public void sendAsyncApiCommand(String addr, String command, String arg, Consumer<String> consumer) {
-        publicExecutor.execute(() -> {
-            String msg = sendAsyncApiCommand(addr, command, arg);
+        sendBgApiCommandAsync(addr, command, arg).thenAcceptAsync(msg -> {
             if (consumer != null) {
                 consumer.accept(msg);
             }
-        });
-
+        }, publicExecutor).whenComplete((result, cause) -> logFailure("sendAsyncApiCommand", addr, command, arg, cause));
     }
 
     /**
@@ -132,11 +231,25 @@ public class NettyInboundClient extends AbstractInboundClient {
      */
     @Override
     public CommandResponse setEventSubscriptions(String addr, String format, String events) {
-        if (!StringUtils.equals(format, EslConstant.PLAIN)) {
-            throw new IllegalStateException("Only 'plain' event format is supported at present");
-        }
+        String command = eventCommand(format, events);
         InboundChannelHandler handler = getAuthedHandler(addr);
+        EslMessage response = handler.sendSyncSingleLineCommand(command);
+        return new CommandResponse(command, response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> setEventSubscriptionsAsync(String addr, String format, String events) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, eventCommand(format, events)));
+    }
 
+    private static String eventCommand(String format, String events) {
+        if (!StringUtils.equals(format, EslConstant.PLAIN) && !StringUtils.equals(format, EslConstant.JSON)
+                && !StringUtils.equals(format, EslConstant.XML)) {
+            throw new IllegalStateException("Only 'plain', 'json' and 'xml' event formats are supported");
+        }
         StringBuilder sb = new StringBuilder();
         sb.append("event ");
         sb.append(format);
@@ -144,8 +257,7 @@ public class NettyInboundClient extends AbstractInboundClient {
             sb.append(' ');
             sb.append(events);
         }
-        EslMessage response = handler.sendSyncSingleLineCommand(sb.toString());
-        return new CommandResponse(sb.toString(), response);
+        return sb.toString();
     }
 
     /**
@@ -158,24 +270,32 @@ public class NettyInboundClient extends AbstractInboundClient {
         return new CommandResponse("noevents", response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> cancelEventSubscriptionsAsync(String addr) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, "noevents"));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public CommandResponse addEventFilter(String addr, String eventHeader, String valueToFilter) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        StringBuilder sb = new StringBuilder();
-        if (eventHeader != null && !eventHeader.isEmpty()) {
-            sb.append("filter ");
-            sb.append(eventHeader);
-        }
-        if (valueToFilter != null && !valueToFilter.isEmpty()) {
-            sb.append(' ');
-            sb.append(valueToFilter);
-        }
-        EslMessage response = handler.sendSyncSingleLineCommand(sb.toString());
+        String command = filterCommand("filter ", eventHeader, valueToFilter);
+        EslMessage response = handler.sendSyncSingleLineCommand(command);
 
-        return new CommandResponse(sb.toString(), response);
+        return new CommandResponse(command, response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> addEventFilterAsync(String addr, String eventHeader, String valueToFilter) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, filterCommand("filter ", eventHeader, valueToFilter)));
     }
 
     /**
@@ -184,18 +304,30 @@ public class NettyInboundClient extends AbstractInboundClient {
     @Override
     public CommandResponse deleteEventFilter(String addr, String eventHeader, String valueToFilter) {
         InboundChannelHandler handler = getAuthedHandler(addr);
+        String command = filterCommand("filter delete ", eventHeader, valueToFilter);
+        EslMessage response = handler.sendSyncSingleLineCommand(command);
+        return new CommandResponse(command, response);
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> deleteEventFilterAsync(String addr, String eventHeader, String valueToFilter) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, filterCommand("filter delete ", eventHeader, valueToFilter)));
+    }
+
+    private static String filterCommand(String prefix, String eventHeader, String valueToFilter) {
         StringBuilder sb = new StringBuilder();
         if (eventHeader != null && !eventHeader.isEmpty()) {
-            sb.append("filter delete ");
+            sb.append(prefix);
             sb.append(eventHeader);
         }
         if (valueToFilter != null && !valueToFilter.isEmpty()) {
             sb.append(' ');
             sb.append(valueToFilter);
         }
-        EslMessage response = handler.sendSyncSingleLineCommand(sb.toString());
-        return new CommandResponse(sb.toString(), response);
+        return sb.toString();
     }
 
     /**
@@ -204,33 +336,81 @@ public class NettyInboundClient extends AbstractInboundClient {
     @Override
     public CommandResponse sendEvent(String addr, SendEvent sendEvent) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        EslMessage response = handler.sendSyncMultiLineCommand(sendEvent.getMsgLines());
+        EslMessage response = handler.sendSyncCommand(EslCommand.of(sendEvent.getMsgLines()), null);
         return new CommandResponse(sendEvent.toString(), response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> sendEventAsync(String addr, SendEvent sendEvent) {
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.of(sendEvent.getMsgLines()), null)
+                .thenApply(response -> new CommandResponse(sendEvent.toString(), response)));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public CommandResponse sendMessage(String addr, SendMsg sendMsg) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        EslMessage response = handler.sendSyncMultiLineCommand(sendMsg.getMsgLines());
+        EslMessage response = handler.sendSyncCommand(EslCommand.of(sendMsg.getMsgLines()), null);
         return new CommandResponse(sendMsg.toString(), response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> sendMessageAsync(String addr, SendMsg sendMsg) {
+        return sendAsync(addr, handler -> handler.sendCommand(EslCommand.of(sendMsg.getMsgLines()), null)
+                .thenApply(response -> new CommandResponse(sendMsg.toString(), response)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CommandResponse sendMessage(String addr, CommandTemplate template, String... args) {
+        InboundChannelHandler handler = getAuthedHandler(addr);
+        EslCommand command = template.with(args);
+        EslMessage response = handler.sendSyncCommand(command, null);
+        return new CommandResponse(command.toString(), response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> sendMessageAsync(String addr, CommandTemplate template, String... args) {
+        return sendAsync(addr, handler -> {
+            EslCommand command = template.with(args);
+            return handler.sendCommand(command, null).thenApply(response -> new CommandResponse(command.toString(), response));
+        });
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public CommandResponse setLoggingLevel(String addr, String level) {
         InboundChannelHandler handler = getAuthedHandler(addr);
-        StringBuilder sb = new StringBuilder();
-        if (level != null && !level.isEmpty()) {
-            sb.append("log ");
-            sb.append(level);
-        }
-        EslMessage response = handler.sendSyncSingleLineCommand(sb.toString());
-        return new CommandResponse(sb.toString(), response);
+        String command = logCommand(level);
+        EslMessage response = handler.sendSyncSingleLineCommand(command);
+        return new CommandResponse(command, response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> setLoggingLevelAsync(String addr, String level) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, logCommand(level)));
+    }
+
+    private static String logCommand(String level) {
+        return level != null && !level.isEmpty() ? "log " + level : "";
     }
 
     /**
@@ -243,6 +423,14 @@ public class NettyInboundClient extends AbstractInboundClient {
         return new CommandResponse("nolog", response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> cancelLoggingAsync(String addr) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, "nolog"));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -253,6 +441,14 @@ public class NettyInboundClient extends AbstractInboundClient {
         return new CommandResponse("exit", response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommandResponse> closeAsync(String addr) {
+        return sendAsync(addr, handler -> sendSingleLineAsync(handler, "exit"));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -261,4 +457,28 @@ public class NettyInboundClient extends AbstractInboundClient {
         getAuthedHandler(addr).close();
         return this;
     }
+
+    /**
+     * The consumer variants have no future to fail, a failed command or consumer would go unnoticed.
+     */
+    private void logFailure(String method, String addr, String command, String arg, Throwable cause) {
+        if (cause != null) {
+            log.error("Error caught in {}, addr : {}, command : {}, arg : {}, cause : ", method, addr, command, arg, cause);
+        }
+    }
+
+    private <T> CompletableFuture<T> sendAsync(String addr, Function<InboundChannelHandler, CompletableFuture<T>> send) {
+        try {
+            return send.apply(getAuthedHandler(addr));
+        } catch (RuntimeException e) {
+            // the caller only looks at the future
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static CompletableFuture<CommandResponse> sendSingleLineAsync(InboundChannelHandler handler, String command) {
+        return handler.sendCommand(EslCommand.of(command), null).thenApply(response -> new CommandResponse(command, response));
+    }
 }
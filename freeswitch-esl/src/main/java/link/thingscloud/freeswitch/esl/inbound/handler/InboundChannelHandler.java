@@ -20,25 +20,40 @@ package link.thingscloud.freeswitch.esl.inbound.handler;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoop;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import link.thingscloud.freeswitch.esl.exception.InboundClientException;
+import link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion;
 import link.thingscloud.freeswitch.esl.helper.EslHelper;
 import link.thingscloud.freeswitch.esl.inbound.listener.ChannelEventListener;
+import link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission;
 import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.LazyEslEvent;
+import link.thingscloud.freeswitch.esl.transport.message.EslBodyChunk;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommand;
 import link.thingscloud.freeswitch.esl.transport.message.EslHeaders;
 import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
 import link.thingscloud.freeswitch.esl.util.RemotingUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * <p>InboundChannelHandler class.</p>
@@ -49,16 +64,40 @@ import java.util.concurrent.locks.ReentrantLock;
 @Slf4j
 public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessage> {
 
-    private static final String MESSAGE_TERMINATOR = "\n\n";
-    private static final String LINE_TERMINATOR = "\n";
-
-    private final Lock syncLock = new ReentrantLock();
-    private final Queue<SyncCallback> syncCallbacks = new ConcurrentLinkedQueue<>();
+    /**
+     * the callbacks in the order of the commands on the wire, only used on the event loop. a callback is only
+     * here while its command is on the wire or queued to be written, so each reply has a callback to go to
+     */
+    private final Queue<SyncCallback> syncCallbacks = new ArrayDeque<>();
+    /**
+     * the commands held back while the channel is not writable, only used on the event loop
+     */
+    private final Queue<PendingCommand> pendingCommands = new ArrayDeque<>();
+    /**
+     * the senders waiting for the channel to be writable, see {@link CommandAdmission#BLOCK}, a lock rather
+     * than a monitor so a waiting virtual thread does not pin its carrier thread
+     */
+    private final Lock writableLock = new ReentrantLock();
+    private final Condition writableCondition = writableLock.newCondition();
+    private volatile int queuedCommands;
+    /**
+     * true while a flush is queued behind the submitted commands, only used on the event loop
+     */
+    private boolean flushScheduled;
+    private CommandAdmission commandAdmission = CommandAdmission.UNBOUNDED;
+    private long commandAdmissionTimeoutMillis = 3000;
+    private int commandQueueCapacity = 1024;
+    private long commandTimeoutMillis = 0;
     private final ChannelEventListener listener;
     private final ExecutorService publicExecutor;
     private final boolean disablePublicExecutor;
+    private final boolean pooledEvents;
     private Channel channel;
     private String remoteAddr;
+    /**
+     * the callback of the chunked api/response being received, only used on the event loop
+     */
+    private SyncCallback chunkedCallback;
 
     private final boolean isTraceEnabled = log.isTraceEnabled();
 
@@ -70,9 +109,52 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
      * @param disablePublicExecutor a boolean.
      */
     public InboundChannelHandler(ChannelEventListener listener, ExecutorService publicExecutor, boolean disablePublicExecutor) {
+        this(listener, publicExecutor, disablePublicExecutor, false);
+    }
+
+    /**
+     * <p>Constructor for InboundChannelHandler.</p>
+     *
+     * @param listener              a {@link link.thingscloud.freeswitch.esl.inbound.listener.ChannelEventListener} object.
+     * @param publicExecutor        a {@link java.util.concurrent.ExecutorService} object.
+     * @param disablePublicExecutor a boolean.
+     * @param pooledEvents          a boolean.
+     */
+    public InboundChannelHandler(ChannelEventListener listener, ExecutorService publicExecutor, boolean disablePublicExecutor,
+                                 boolean pooledEvents) {
+        // events are released once their listeners are done, see handleEslEvent
+        super(false);
         this.listener = listener;
         this.publicExecutor = publicExecutor;
         this.disablePublicExecutor = disablePublicExecutor;
+        this.pooledEvents = pooledEvents;
+    }
+
+    /**
+     * What happens to the commands sent while the channel is not writable.
+     *
+     * @param commandAdmission a {@link link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission} object.
+     * @param timeoutMillis    with {@link CommandAdmission#BLOCK}, the longest a command waits for the channel to be writable
+     * @param queueCapacity    with {@link CommandAdmission#QUEUE}, the most commands held back
+     * @return this
+     */
+    public InboundChannelHandler commandAdmission(CommandAdmission commandAdmission, long timeoutMillis, int queueCapacity) {
+        this.commandAdmission = Objects.requireNonNull(commandAdmission);
+        this.commandAdmissionTimeoutMillis = timeoutMillis;
+        this.commandQueueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * The deadline of the commands sent without one, 0 for none. A command past its deadline fails with an
+     * {@link link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion}, its late reply is discarded.
+     *
+     * @param commandTimeoutMillis a long.
+     * @return this
+     */
+    public InboundChannelHandler commandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        return this;
     }
 
     /**
@@ -94,9 +176,39 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         super.channelInactive(ctx);
         log.debug("channelInactive remoteAddr : {}", remoteAddr);
+        pendingCommands.clear();
+        queuedCommands = 0;
+        // no reply will come for the commands sent, the queued ones are among them
+        InboundClientException cause = new InboundClientException("channel closed, remoteAddr : " + remoteAddr);
+        if (chunkedCallback != null) {
+            chunkedCallback.fail(cause);
+            chunkedCallback = null;
+        }
+        SyncCallback callback;
+        while ((callback = syncCallbacks.poll()) != null) {
+            callback.fail(cause);
+        }
+        // the blocked senders write to the closed channel and fail
+        signalWritable();
         listener.onChannelClosed(remoteAddr);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            log.debug("channelWritabilityChanged remoteAddr : {}, writable", remoteAddr);
+            signalWritable();
+            // before the commands submitted from now on, to keep the order of the callbacks
+            writePendingCommands();
+        } else {
+            log.debug("channelWritabilityChanged remoteAddr : {}, not writable", remoteAddr);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -105,7 +217,8 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         if (evt instanceof IdleStateEvent) {
             if (((IdleStateEvent) evt).state() == IdleState.READER_IDLE) {
                 log.debug("userEventTriggered remoteAddr : {}, evt state : {} ", remoteAddr, ((IdleStateEvent) evt).state());
-                publicExecutor.execute(() -> sendSyncSingleLineCommand("status"));
+                // nothing waits for the reply, a dead server is left to the read timeout
+                sendCommand(EslCommand.of("status"), null);
             }
         }
     }
@@ -118,6 +231,18 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         log.error("exceptionCaught remoteAddr : {}, cause : ", remoteAddr, cause);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof EslBodyChunk) {
+            handleBodyChunk((EslBodyChunk) msg);
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -128,10 +253,18 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         }
         String contentType = msg.getContentType();
         if (contentType.equals(EslHeaders.Value.TEXT_EVENT_PLAIN) ||
+                contentType.equals(EslHeaders.Value.TEXT_EVENT_JSON) ||
                 contentType.equals(EslHeaders.Value.TEXT_EVENT_XML)) {
             //  transform into an event
-            EslEvent eslEvent = new EslEvent(msg);
-            handleEslEvent(eslEvent);
+            EslEvent event;
+            try {
+                event = newEslEvent(msg);
+            } catch (RuntimeException e) {
+                // a malformed json or xml body, the event never took the message over
+                msg.release();
+                throw e;
+            }
+            handleEslEvent(event);
         } else {
             handleEslMessage(msg);
         }
@@ -143,11 +276,18 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         switch (contentType) {
             case EslHeaders.Value.API_RESPONSE:
                 log.debug("Api response received [{}]", message);
-                Objects.requireNonNull(syncCallbacks.poll()).handle(message);
+                SyncCallback callback = Objects.requireNonNull(syncCallbacks.poll());
+                if (message.isChunked()) {
+                    // completed by the last body chunk
+                    chunkedCallback = callback;
+                    callback.handleHeaders(message);
+                } else {
+                    handleReply(callback, message);
+                }
                 break;
             case EslHeaders.Value.COMMAND_REPLY:
                 log.debug("Command reply received [{}]", message);
-                Objects.requireNonNull(syncCallbacks.poll()).handle(message);
+                handleReply(Objects.requireNonNull(syncCallbacks.poll()), message);
                 break;
             case EslHeaders.Value.AUTH_REQUEST:
                 log.debug("Auth request received [{}]", message);
@@ -163,11 +303,56 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         }
     }
 
+    private void handleReply(SyncCallback callback, EslMessage message) {
+        if (message.isTruncated()) {
+            // an empty body would pass for a successful reply
+            callback.fail(new InboundClientException("reply body of " + message.getContentLength()
+                    + " bytes is longer than maxBodySize, remoteAddr : " + remoteAddr));
+        } else {
+            callback.handle(message);
+        }
+    }
+
+    private void handleBodyChunk(EslBodyChunk chunk) {
+        SyncCallback callback = chunkedCallback;
+        if (callback == null) {
+            log.warn("Unexpected body chunk [{}]", chunk);
+            return;
+        }
+        callback.handleChunk(chunk);
+        if (chunk.isLast()) {
+            chunkedCallback = null;
+            callback.complete();
+        }
+    }
+
+    private EslEvent newEslEvent(EslMessage msg) {
+        if (msg.hasRawBody() && EslHeaders.Value.TEXT_EVENT_PLAIN.equals(msg.getContentType())) {
+            // headers are parsed on demand by the listeners
+            return pooledEvents ? LazyEslEvent.newInstance(msg) : new LazyEslEvent(msg);
+        }
+        // pooled events go back to the pool when released in dispatchEslEvent
+        return pooledEvents ? EslEvent.newInstance(msg) : new EslEvent(msg);
+    }
+
     private void handleEslEvent(EslEvent event) {
         if (disablePublicExecutor) {
-            listener.handleEslEvent(remoteAddr, event);
+            dispatchEslEvent(event);
         } else {
-            publicExecutor.execute(() -> listener.handleEslEvent(remoteAddr, event));
+            try {
+                publicExecutor.execute(() -> dispatchEslEvent(event));
+            } catch (RejectedExecutionException e) {
+                event.release();
+                throw e;
+            }
+        }
+    }
+
+    private void dispatchEslEvent(EslEvent event) {
+        try {
+            listener.handleEslEvent(remoteAddr, event);
+        } finally {
+            event.release();
         }
     }
 
@@ -180,20 +365,161 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
      * @return the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} attached to this command's callback
      */
     public EslMessage sendSyncSingleLineCommand(final String command) {
+        return sendSyncSingleLineCommand(command, null);
+    }
+
+    /**
+     * Like {@link #sendSyncSingleLineCommand(String)}, but the body lines of the response are handed to the
+     * line consumer as they arrive instead of being collected in the returned message, so a multi-megabyte
+     * {@code api/response} is never held in memory as a whole. The consumer is called on the I/O thread,
+     * it must not block.
+     *
+     * @param command      single string to send
+     * @param lineConsumer receives each body line of the response, null to collect them in the message
+     * @return the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} attached to this command's callback,
+     * with the body lines only if the response was small enough not to be chunked
+     */
+    public EslMessage sendSyncSingleLineCommand(final String command, final Consumer<String> lineConsumer) {
+        return sendSyncCommand(EslCommand.of(command), lineConsumer);
+    }
+
+    /**
+     * Like {@link #sendSyncSingleLineCommand(String, Consumer)}, the command is written straight into the
+     * outbound buffer by the {@link link.thingscloud.freeswitch.esl.transport.message.EslCommandEncoder}.
+     * <p>
+     * While the channel is not writable, the command is rejected, waits or is queued, see
+     * {@link #commandAdmission(CommandAdmission, long, int)}.
+     *
+     * @param command      the command to send
+     * @param lineConsumer receives each body line of the response, null to collect them in the message
+     * @return the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} attached to this command's callback
+     * @throws link.thingscloud.freeswitch.esl.exception.InboundClientException if the command is not admitted or the wait is interrupted.
+     */
+    public EslMessage sendSyncCommand(final EslCommand command, final Consumer<String> lineConsumer) {
+        if (isTraceEnabled) {
+            log.trace("sendSyncCommand command : {}", command);
+        }
+        //  Block until the response is available
+        return send(command, lineConsumer, commandTimeoutMillis).get();
+    }
+
+    /**
+     * Like {@link #sendSyncCommand(EslCommand, Consumer)} with a deadline. The deadline is kept by the I/O
+     * thread, the reply arriving after it is discarded, so it is never taken for the reply to the next command.
+     *
+     * @param command       the command to send
+     * @param lineConsumer  receives each body line of the response, null to collect them in the message
+     * @param timeoutMillis the deadline of the command, 0 for none
+     * @return the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} attached to this command's callback
+     * @throws link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion if the reply did not arrive in time.
+     */
+    public EslMessage sendSyncCommand(final EslCommand command, final Consumer<String> lineConsumer, final long timeoutMillis) {
         if (isTraceEnabled) {
-            log.trace("sendSyncSingleLineCommand command : {}", command);
+            log.trace("sendSyncCommand command : {}, timeoutMillis : {}", command, timeoutMillis);
+        }
+        return send(command, lineConsumer, timeoutMillis).get();
+    }
+
+    /**
+     * Like {@link #sendSyncCommand(EslCommand, Consumer)} without blocking, no thread waits for the reply.
+     * The future is completed by the I/O thread when the reply arrives, dependent actions must not block.
+     * <p>
+     * A command that is not admitted fails the future, but {@link CommandAdmission#BLOCK} still makes the
+     * caller wait while the channel is not writable.
+     *
+     * @param command      the command to send
+     * @param lineConsumer receives each body line of the response, null to collect them in the message
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} replied to the command
+     */
+    public CompletableFuture<EslMessage> sendCommand(final EslCommand command, final Consumer<String> lineConsumer) {
+        return sendCommand(command, lineConsumer, commandTimeoutMillis);
+    }
+
+    /**
+     * Like {@link #sendCommand(EslCommand, Consumer)} with a deadline, the future fails with an
+     * {@link link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion} if the reply did not arrive in time.
+     *
+     * @param command       the command to send
+     * @param lineConsumer  receives each body line of the response, null to collect them in the message
+     * @param timeoutMillis the deadline of the command, 0 for none
+     * @return a future of the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} replied to the command
+     */
+    public CompletableFuture<EslMessage> sendCommand(final EslCommand command, final Consumer<String> lineConsumer, final long timeoutMillis) {
+        if (isTraceEnabled) {
+            log.trace("sendCommand command : {}, timeoutMillis : {}", command, timeoutMillis);
         }
-        SyncCallback callback = new SyncCallback();
-        syncLock.lock();
         try {
-            syncCallbacks.add(callback);
-            channel.writeAndFlush(command + MESSAGE_TERMINATOR);
-        } finally {
-            syncLock.unlock();
+            return send(command, lineConsumer, timeoutMillis).future;
+        } catch (RuntimeException e) {
+            CompletableFuture<EslMessage> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
         }
+    }
 
-        //  Block until the response is available
-        return callback.get();
+    private SyncCallback send(final EslCommand command, final Consumer<String> lineConsumer, final long timeoutMillis) {
+        SyncCallback callback = new SyncCallback(lineConsumer);
+        awaitWritable();
+        if (!submit(() -> {
+            admit(command, callback);
+            expireAfter(callback, command, timeoutMillis);
+        })) {
+            callback.fail(new InboundClientException("event loop is shut down, remoteAddr : " + remoteAddr));
+        }
+        return callback;
+    }
+
+    /**
+     * Runs the task on the event loop, where the callbacks are enqueued in the same order as the commands
+     * are written, so the callers never contend on a lock. The commands submitted together are flushed once.
+     *
+     * @return false if the event loop is shut down and the task will never run
+     */
+    private boolean submit(Runnable task) {
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            task.run();
+            scheduleFlush();
+            return true;
+        }
+        try {
+            eventLoop.execute(() -> {
+                task.run();
+                scheduleFlush();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queues a flush behind the commands already submitted to the event loop, unless one is queued already.
+     */
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        channel.eventLoop().execute(() -> {
+            flushScheduled = false;
+            channel.flush();
+        });
+    }
+
+    /**
+     * Fails the callback on the I/O thread once the deadline has passed. The callback keeps its place in
+     * the queue of callbacks until its late reply arrives, the replies to the next commands still go to
+     * their own callbacks.
+     */
+    private void expireAfter(SyncCallback callback, EslCommand command, long timeoutMillis) {
+        if (timeoutMillis <= 0 || callback.future.isDone()) {
+            return;
+        }
+        ScheduledFuture<?> timeout = channel.eventLoop().schedule(() -> callback.expire(
+                new InboundTimeoutExcetion("no reply after " + timeoutMillis + " ms, remoteAddr : " + remoteAddr + ", command : " + command)),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        callback.future.whenComplete((response, cause) -> timeout.cancel(false));
     }
 
     /**
@@ -205,27 +531,169 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
      * @return the {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} attached to this command's callback
      */
     public EslMessage sendSyncMultiLineCommand(final List<String> commandLines) {
-        SyncCallback callback = new SyncCallback();
-        //  Build command with double line terminator at the end
-        StringBuilder sb = new StringBuilder();
-        for (String line : commandLines) {
-            sb.append(line);
-            sb.append(LINE_TERMINATOR);
-        }
-        sb.append(LINE_TERMINATOR);
-        if (isTraceEnabled) {
-            log.trace("sendSyncMultiLineCommand command : {}", sb.toString());
+        // each line and the double line terminator at the end are written by the encoder
+        return sendSyncCommand(EslCommand.of(commandLines), null);
+    }
+
+    /**
+     * Write all the commands and flush them once, without waiting for the reply to one command before
+     * sending the next. FreeSWITCH replies in order, so the futures complete in order as the replies arrive.
+     * <p>
+     * The futures complete on the I/O thread, dependent actions must not block.
+     *
+     * @param commands the commands to send
+     * @return a future of the reply to each command, in the order of the commands
+     */
+    public List<CompletableFuture<EslMessage>> sendPipelinedCommands(final List<EslCommand> commands) {
+        List<CompletableFuture<EslMessage>> futures = new ArrayList<>(commands.size());
+        if (commands.isEmpty()) {
+            return futures;
+        }
+        List<SyncCallback> callbacks = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            SyncCallback callback = new SyncCallback();
+            callbacks.add(callback);
+            futures.add(callback.future);
         }
-        syncLock.lock();
         try {
+            awaitWritable();
+        } catch (InboundClientException e) {
+            callbacks.forEach(callback -> callback.fail(e));
+            return futures;
+        }
+        if (!submit(() -> {
+            for (int i = 0; i < commands.size(); i++) {
+                EslCommand command = commands.get(i);
+                if (isTraceEnabled) {
+                    log.trace("sendPipelinedCommands command : {}", command);
+                }
+                admit(command, callbacks.get(i));
+                expireAfter(callbacks.get(i), command, commandTimeoutMillis);
+            }
+        })) {
+            InboundClientException cause = new InboundClientException("event loop is shut down, remoteAddr : " + remoteAddr);
+            callbacks.forEach(callback -> callback.fail(cause));
+        }
+        return futures;
+    }
+
+    /**
+     * Writes the command if the channel is writable, otherwise applies the command admission. Must be
+     * called on the event loop, a command that is not admitted fails its callback.
+     */
+    private void admit(EslCommand command, SyncCallback callback) {
+        if (!channel.isActive() || commandAdmission == CommandAdmission.UNBOUNDED
+                || commandAdmission == CommandAdmission.BLOCK || (channel.isWritable() && pendingCommands.isEmpty())) {
+            // a write to a closed channel fails the callback, the blocked senders have waited already
+            syncCallbacks.add(callback);
+            write(command, callback);
+            return;
+        }
+        if (commandAdmission == CommandAdmission.FAIL_FAST) {
+            callback.fail(new InboundClientException("channel is not writable, remoteAddr : " + remoteAddr));
+        } else if (pendingCommands.size() >= commandQueueCapacity) {
+            callback.fail(new InboundClientException("command queue is full, remoteAddr : " + remoteAddr + ", capacity : " + commandQueueCapacity));
+        } else {
             syncCallbacks.add(callback);
-            channel.writeAndFlush(sb.toString());
+            pendingCommands.add(new PendingCommand(command, callback));
+            queuedCommands = pendingCommands.size();
+        }
+    }
+
+    /**
+     * With {@link CommandAdmission#BLOCK}, makes the sender wait for the channel to be writable before its
+     * command is submitted to the event loop.
+     */
+    private void awaitWritable() {
+        if (commandAdmission != CommandAdmission.BLOCK || !channel.isActive() || channel.isWritable()) {
+            return;
+        }
+        if (channel.eventLoop().inEventLoop()) {
+            // the I/O thread would wait for itself
+            throw new InboundClientException("channel is not writable, remoteAddr : " + remoteAddr);
+        }
+        long nanos = TimeUnit.MILLISECONDS.toNanos(commandAdmissionTimeoutMillis);
+        writableLock.lock();
+        try {
+            while (channel.isActive() && !channel.isWritable()) {
+                if (nanos <= 0) {
+                    throw new InboundTimeoutExcetion("channel is not writable after " + commandAdmissionTimeoutMillis
+                            + " ms, remoteAddr : " + remoteAddr);
+                }
+                nanos = writableCondition.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InboundClientException(e);
         } finally {
-            syncLock.unlock();
+            writableLock.unlock();
         }
+    }
 
-        //  Block until the response is available
-        return callback.get();
+    private void signalWritable() {
+        writableLock.lock();
+        try {
+            writableCondition.signalAll();
+        } finally {
+            writableLock.unlock();
+        }
+    }
+
+    private void write(EslCommand command, SyncCallback callback) {
+        channel.write(command).addListener(future -> {
+            if (!future.isSuccess()) {
+                if (channel.isActive()) {
+                    // never reached the server, e.g. the encoder failed, so no reply will come for it
+                    syncCallbacks.remove(callback);
+                }
+                callback.fail(future.cause());
+            }
+        });
+    }
+
+    private void writePendingCommands() {
+        if (pendingCommands.isEmpty()) {
+            return;
+        }
+        PendingCommand pending;
+        while (channel.isWritable() && (pending = pendingCommands.poll()) != null) {
+            if (pending.callback.future.isDone()) {
+                // expired while queued, it never reaches the server so no reply will come for it
+                syncCallbacks.remove(pending.callback);
+                continue;
+            }
+            write(pending.command, pending.callback);
+        }
+        queuedCommands = pendingCommands.size();
+        channel.flush();
+    }
+
+    /**
+     * <p>isWritable.</p>
+     *
+     * @return true if commands are written at once, false while more bytes than the high water mark wait to be written.
+     */
+    public boolean isWritable() {
+        return channel != null && channel.isWritable();
+    }
+
+    /**
+     * <p>pendingWriteBytes.</p>
+     *
+     * @return the number of bytes waiting to be written to the server.
+     */
+    public long pendingWriteBytes() {
+        ChannelOutboundBuffer buffer = channel == null ? null : channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    /**
+     * <p>queuedCommands.</p>
+     *
+     * @return the number of commands held back until the channel is writable, see {@link CommandAdmission#QUEUE}.
+     */
+    public int queuedCommands() {
+        return queuedCommands;
     }
 
     /**
@@ -235,11 +703,35 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
      * @return Job-UUID as a string
      */
     public String sendAsyncCommand(final String command) {
+        return sendAsyncCommand(EslCommand.of(command));
+    }
+
+    /**
+     * Returns the Job UUID of that the response event will have.
+     *
+     * @param command cmd
+     * @return Job-UUID as a string
+     */
+    public String sendAsyncCommand(final EslCommand command) {
         /*
          * Send synchronously to get the Job-UUID to return, the results of the actual
          * job request will be returned by the server as an async event.
          */
-        EslMessage response = sendSyncSingleLineCommand(command);
+        return jobUuid(command, sendSyncCommand(command, null));
+    }
+
+    /**
+     * Like {@link #sendAsyncCommand(EslCommand)} without blocking, the future completes with the Job UUID
+     * on the I/O thread, dependent actions must not block.
+     *
+     * @param command the bgapi command
+     * @return a future of the Job-UUID
+     */
+    public CompletableFuture<String> sendBackgroundCommand(final EslCommand command) {
+        return sendCommand(command, null).thenApply(response -> jobUuid(command, response));
+    }
+
+    private String jobUuid(EslCommand command, EslMessage response) {
         if (isTraceEnabled) {
             log.trace("sendAsyncCommand command : {}, response : {}", command, response);
         }
@@ -260,37 +752,134 @@ public class InboundChannelHandler extends SimpleChannelInboundHandler<EslMessag
         return channel.close();
     }
 
+    private static class PendingCommand {
+        private final EslCommand command;
+        private final SyncCallback callback;
+
+        PendingCommand(EslCommand command, SyncCallback callback) {
+            this.command = command;
+            this.callback = callback;
+        }
+    }
+
     class SyncCallback {
-        private final CountDownLatch latch = new CountDownLatch(1);
+        private final CompletableFuture<EslMessage> future = new CompletableFuture<>();
+        private final Consumer<String> lineConsumer;
         private EslMessage response;
 
+        SyncCallback() {
+            this(null);
+        }
+
+        SyncCallback(Consumer<String> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+        }
+
         /**
-         * Block waiting for the countdown latch to be released, then return the
+         * Block waiting for the future to be completed, then return the
          * associated response object.
          *
          * @return msg
          */
         EslMessage get() {
             try {
-                log.trace("awaiting latch ... ");
-                latch.await();
+                log.trace("awaiting response ... ");
+                EslMessage message = future.get();
+                log.trace("returning response [{}]", message);
+                return message;
             } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                Thread.currentThread().interrupt();
+                throw new InboundClientException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InboundClientException) {
+                    throw (InboundClientException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
             }
-
-            log.trace("returning response [{}]", response);
-            return response;
         }
 
         /**
-         * Attach this response to the callback and release the countdown latch.
+         * Attach this response to the callback and complete the future. A callback already done here
+         * expired after its command was sent, the response is its own late reply: the callbacks of the
+         * commands that never reached the server are taken out of the queue.
          *
          * @param response res
          */
         void handle(EslMessage response) {
+            if (future.isDone()) {
+                log.debug("Discarding late reply [{}]", response);
+                return;
+            }
             this.response = response;
-            log.trace("releasing latch for response [{}]", response);
-            latch.countDown();
+            if (lineConsumer != null) {
+                acceptLines(response.getBodyLines());
+            }
+            complete();
+        }
+
+        /**
+         * Attach the headers of a chunked response, the body follows in chunks.
+         *
+         * @param response res
+         */
+        void handleHeaders(EslMessage response) {
+            this.response = response;
+        }
+
+        /**
+         * Hand the lines to the line consumer, or collect them in the response.
+         *
+         * @param chunk body chunk
+         */
+        void handleChunk(EslBodyChunk chunk) {
+            if (future.isDone()) {
+                // the rest of a late reply
+                return;
+            }
+            if (lineConsumer != null) {
+                acceptLines(chunk.getLines());
+            } else {
+                chunk.appendTo(response);
+            }
+        }
+
+        /**
+         * Complete the future with the response.
+         */
+        void complete() {
+            log.trace("completing future with response [{}]", response);
+            future.complete(response);
+        }
+
+        /**
+         * Complete the future exceptionally, the command could not be sent.
+         *
+         * @param cause the write failure
+         */
+        void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * Complete the future exceptionally, the reply did not arrive in time. The late reply is discarded.
+         *
+         * @param cause the timeout
+         */
+        void expire(InboundTimeoutExcetion cause) {
+            if (future.completeExceptionally(cause)) {
+                log.debug("expire remoteAddr : {}, cause : {}", remoteAddr, cause.getMessage());
+            }
+        }
+
+        private void acceptLines(List<String> lines) {
+            try {
+                for (String line : lines) {
+                    lineConsumer.accept(line);
+                }
+            } catch (RuntimeException e) {
+                // keep decoding the response, the caller is still waiting for it
+                log.error("lineConsumer remoteAddr : {}, cause : ", remoteAddr, e);
+            }
         }
     }
 
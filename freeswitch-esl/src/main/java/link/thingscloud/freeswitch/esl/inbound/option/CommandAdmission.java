@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound.option;
+
+/**
+ * What happens to a command sent while the channel is not writable, that is while more bytes than the
+ * write buffer high water mark wait to be written to a stalled server.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ * @see InboundClientOption#writeBufferHighWaterMark(int)
+ */
+public enum CommandAdmission {
+    /**
+     * 不限制，照常写出，待写出数据在出站缓冲区中不断累积（默认，与之前版本的行为一致）
+     */
+    UNBOUNDED,
+    /**
+     * 立即失败，抛出 InboundClientException
+     */
+    FAIL_FAST,
+    /**
+     * 阻塞等待通道可写，超时抛出 InboundTimeoutExcetion
+     */
+    BLOCK,
+    /**
+     * 放入有界队列，通道可写时按序写出，队列满时抛出 InboundClientException
+     */
+    QUEUE
+}
@@ -19,8 +19,10 @@ package link.thingscloud.freeswitch.esl.inbound.option;
 
 import link.thingscloud.freeswitch.esl.IEslEventListener;
 import link.thingscloud.freeswitch.esl.ServerConnectionListener;
+import link.thingscloud.freeswitch.esl.constant.EslConstant;
 import link.thingscloud.freeswitch.esl.inbound.listener.EventListener;
 import link.thingscloud.freeswitch.esl.inbound.listener.ServerOptionListener;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventFilter;
 import link.thingscloud.freeswitch.esl.util.StringUtils;
 import lombok.ToString;
 
@@ -49,7 +51,25 @@ public class InboundClientOption {
     private int readTimeoutSeconds = 30;
     private int readerIdleTimeSeconds = 25;
 
+    private int maxHeaderSize = 8192;
+    private int maxBodySize = Integer.MAX_VALUE;
+    private int apiResponseChunkSize = 65536;
+
+
+    private int writeBufferLowWaterMark = 32 * 1024;
+    private int writeBufferHighWaterMark = 64 * 1024;
+    private CommandAdmission commandAdmission = CommandAdmission.UNBOUNDED;
+    private long commandAdmissionTimeoutMillis = 3000;
+    private int commandQueueCapacity = 1024;
+    private long commandTimeoutMillis = 0;
+    private long backgroundJobTimeoutMillis = 120000;
+
     private boolean disablePublicExecutor = false;
+    private boolean virtualThreads = false;
+    private boolean retainEventBody = false;
+    private boolean pooledEvents = false;
+    private final EslEventFilter eventFilter = new EslEventFilter();
+    private String eventFormat = EslConstant.PLAIN;
     private boolean performance = false;
     private long performanceCostTime = 200;
     private boolean eventPerformance = false;
@@ -275,6 +295,402 @@ public class InboundClientOption {
         return this;
     }
 
+    /**
+     * <p>
+     * run the listeners and the callbacks of the public executor on virtual threads, one per task, so listeners
+     * blocked in sendSyncApiCommand do not starve the others. needs Java 21, ignored on older runtimes.
+     * 公共线程池改用虚拟线程（每个任务一个），监听器中阻塞调用 sendSyncApiCommand 不会耗尽线程；需要 Java 21，低版本忽略
+     * </p>
+     *
+     * @return a boolean.
+     */
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * <p>
+     * run the listeners and the callbacks of the public executor on virtual threads, one per task, so listeners
+     * blocked in sendSyncApiCommand do not starve the others. needs Java 21, ignored on older runtimes.
+     * 公共线程池改用虚拟线程（每个任务一个），监听器中阻塞调用 sendSyncApiCommand 不会耗尽线程；需要 Java 21，低版本忽略
+     * </p>
+     *
+     * @param virtualThreads a boolean.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * <p>
+     * maximum length of an ESL header line.
+     * 包头单行最大长度
+     * </p>
+     *
+     * @return a int.
+     */
+    public int maxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    /**
+     * <p>
+     * maximum length of an ESL header line.
+     * 包头单行最大长度
+     * </p>
+     *
+     * @param maxHeaderSize a int.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption maxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+        return this;
+    }
+
+    /**
+     * <p>
+     * maximum length of a message body, longer bodies are discarded, unlimited by default.
+     * chunked api responses are not limited, they are never buffered in full.
+     * 包体最大长度，超长的包体被丢弃，默认不限制；分块的 api 响应不受限制
+     * </p>
+     *
+     * @return a int.
+     */
+    public int maxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * <p>
+     * maximum length of a message body, longer bodies are discarded, unlimited by default.
+     * chunked api responses are not limited, they are never buffered in full.
+     * 包体最大长度，超长的包体被丢弃，默认不限制；分块的 api 响应不受限制
+     * </p>
+     *
+     * @param maxBodySize a int.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption maxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    /**
+     * <p>
+     * api responses longer than this are decoded in chunks of about this size while they arrive, 0 to disable.
+     * 超过该长度的 api 响应边接收边分块解码，0 表示不分块
+     * </p>
+     *
+     * @return a int.
+     */
+    public int apiResponseChunkSize() {
+        return apiResponseChunkSize;
+    }
+
+    /**
+     * <p>
+     * api responses longer than this are decoded in chunks of about this size while they arrive, 0 to disable.
+     * 超过该长度的 api 响应边接收边分块解码，0 表示不分块
+     * </p>
+     *
+     * @param apiResponseChunkSize a int.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption apiResponseChunkSize(int apiResponseChunkSize) {
+        this.apiResponseChunkSize = apiResponseChunkSize;
+        return this;
+    }
+
+    /**
+     * <p>
+     * the channel becomes writable again once the bytes waiting to be written fall below this mark.
+     * 待写出字节数低于该值时，通道恢复可写
+     * </p>
+     *
+     * @return a int.
+     */
+    public int writeBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    /**
+     * <p>
+     * the channel becomes writable again once the bytes waiting to be written fall below this mark.
+     * 待写出字节数低于该值时，通道恢复可写
+     * </p>
+     * It must not be greater than the high water mark, which is checked when the client is created.
+     *
+     * @param writeBufferLowWaterMark a int, not negative.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     * @throws java.lang.IllegalArgumentException if the mark is negative.
+     */
+    public InboundClientOption writeBufferLowWaterMark(int writeBufferLowWaterMark) {
+        if (writeBufferLowWaterMark < 0) {
+            throw new IllegalArgumentException("writeBufferLowWaterMark must not be negative: " + writeBufferLowWaterMark);
+        }
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        return this;
+    }
+
+    /**
+     * <p>
+     * the channel is not writable while more bytes than this mark wait to be written, see commandAdmission.
+     * 待写出字节数超过该值时，通道不可写，新命令按 commandAdmission 处理
+     * </p>
+     *
+     * @return a int.
+     */
+    public int writeBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    /**
+     * <p>
+     * the channel is not writable while more bytes than this mark wait to be written, see commandAdmission.
+     * 待写出字节数超过该值时，通道不可写，新命令按 commandAdmission 处理
+     * </p>
+     * It must not be less than the low water mark, which is checked when the client is created.
+     *
+     * @param writeBufferHighWaterMark a int, not negative.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     * @throws java.lang.IllegalArgumentException if the mark is negative.
+     */
+    public InboundClientOption writeBufferHighWaterMark(int writeBufferHighWaterMark) {
+        if (writeBufferHighWaterMark < 0) {
+            throw new IllegalArgumentException("writeBufferHighWaterMark must not be negative: " + writeBufferHighWaterMark);
+        }
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    /**
+     * <p>
+     * what happens to a command sent while the channel is not writable, UNBOUNDED by default, which writes it
+     * anyway as earlier versions did.
+     * 通道不可写时新命令的处理方式：照常写出（默认，与之前版本一致）、立即失败、阻塞等待或有界排队
+     * </p>
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission} object.
+     */
+    public CommandAdmission commandAdmission() {
+        return commandAdmission;
+    }
+
+    /**
+     * <p>
+     * what happens to a command sent while the channel is not writable, UNBOUNDED by default, which writes it
+     * anyway as earlier versions did.
+     * 通道不可写时新命令的处理方式：照常写出（默认，与之前版本一致）、立即失败、阻塞等待或有界排队
+     * </p>
+     *
+     * @param commandAdmission a {@link link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption commandAdmission(CommandAdmission commandAdmission) {
+        this.commandAdmission = commandAdmission;
+        return this;
+    }
+
+    /**
+     * <p>
+     * with the BLOCK admission, the longest a command waits for the channel to become writable.
+     * 阻塞等待方式下，命令等待通道可写的最长毫秒数
+     * </p>
+     *
+     * @return a long.
+     */
+    public long commandAdmissionTimeoutMillis() {
+        return commandAdmissionTimeoutMillis;
+    }
+
+    /**
+     * <p>
+     * with the BLOCK admission, the longest a command waits for the channel to become writable.
+     * 阻塞等待方式下，命令等待通道可写的最长毫秒数
+     * </p>
+     *
+     * @param commandAdmissionTimeoutMillis a long.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption commandAdmissionTimeoutMillis(long commandAdmissionTimeoutMillis) {
+        this.commandAdmissionTimeoutMillis = commandAdmissionTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * <p>
+     * with the QUEUE admission, the most commands held back per server while the channel is not writable.
+     * 排队方式下，每个服务器在通道不可写时最多排队的命令数
+     * </p>
+     *
+     * @return a int.
+     */
+    public int commandQueueCapacity() {
+        return commandQueueCapacity;
+    }
+
+    /**
+     * <p>
+     * with the QUEUE admission, the most commands held back per server while the channel is not writable.
+     * 排队方式下，每个服务器在通道不可写时最多排队的命令数
+     * </p>
+     *
+     * @param commandQueueCapacity a int.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption commandQueueCapacity(int commandQueueCapacity) {
+        this.commandQueueCapacity = commandQueueCapacity;
+        return this;
+    }
+
+    /**
+     * <p>
+     * the deadline of each command kept by the I/O thread, 0 for none; a late reply is discarded.
+     * 命令超时毫秒数，由 I/O 线程计时，0 表示不超时；超时后到达的响应会被丢弃，不影响后续命令
+     * </p>
+     *
+     * @return a long.
+     */
+    public long commandTimeoutMillis() {
+        return commandTimeoutMillis;
+    }
+
+    /**
+     * <p>
+     * the deadline of each command kept by the I/O thread, 0 for none; a late reply is discarded.
+     * 命令超时毫秒数，由 I/O 线程计时，0 表示不超时；超时后到达的响应会被丢弃，不影响后续命令
+     * </p>
+     *
+     * @param commandTimeoutMillis a long.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption commandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * <p>
+     * the longest a bgapi job future waits for its BACKGROUND_JOB event, 0 for no limit.
+     * bgapi 任务等待 BACKGROUND_JOB 事件的最长毫秒数，0 表示不限
+     * </p>
+     *
+     * @return a long.
+     */
+    public long backgroundJobTimeoutMillis() {
+        return backgroundJobTimeoutMillis;
+    }
+
+    /**
+     * <p>
+     * the longest a bgapi job future waits for its BACKGROUND_JOB event, 0 for no limit.
+     * bgapi 任务等待 BACKGROUND_JOB 事件的最长毫秒数，0 表示不限
+     * </p>
+     *
+     * @param backgroundJobTimeoutMillis a long.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption backgroundJobTimeoutMillis(long backgroundJobTimeoutMillis) {
+        this.backgroundJobTimeoutMillis = backgroundJobTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * <p>
+     * keep event bodies as slices of the receive buffer and parse them on first access.
+     * 事件消息体不拷贝，首次访问时才解析；监听器若在回调之外持有事件，需要 retain/release
+     * </p>
+     *
+     * @return a boolean.
+     */
+    public boolean retainEventBody() {
+        return retainEventBody;
+    }
+
+    /**
+     * <p>
+     * keep event bodies as slices of the receive buffer and parse them on first access.
+     * 事件消息体不拷贝，首次访问时才解析；监听器若在回调之外持有事件，需要 retain/release
+     * </p>
+     *
+     * @param retainEventBody a boolean.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption retainEventBody(boolean retainEventBody) {
+        this.retainEventBody = retainEventBody;
+        return this;
+    }
+
+    /**
+     * <p>
+     * reuse event and event message instances from a pool, an event goes back to the pool once the listeners return.
+     * listeners that keep an event after the callback must retain() it and release() it when done. replies to
+     * commands are not pooled.
+     * 事件及其消息对象池化复用，监听器返回后事件即被回收；若在回调之外持有事件，需要 retain/release。命令的响应不池化
+     * </p>
+     *
+     * @return a boolean.
+     */
+    public boolean pooledEvents() {
+        return pooledEvents;
+    }
+
+    /**
+     * <p>
+     * reuse event and event message instances from a pool, an event goes back to the pool once the listeners return.
+     * listeners that keep an event after the callback must retain() it and release() it when done. replies to
+     * commands are not pooled.
+     * 事件及其消息对象池化复用，监听器返回后事件即被回收；若在回调之外持有事件，需要 retain/release。命令的响应不池化
+     * </p>
+     *
+     * @param pooledEvents a boolean.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption pooledEvents(boolean pooledEvents) {
+        this.pooledEvents = pooledEvents;
+        return this;
+    }
+
+    /**
+     * <p>
+     * client side event filter, events it rejects are dropped before they are decoded.
+     * 客户端事件过滤，被拒绝的事件在解码前直接丢弃
+     * </p>
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter eventFilter() {
+        return eventFilter;
+    }
+
+    /**
+     * <p>
+     * format of the event subscriptions, plain, json or xml.
+     * 事件订阅格式，plain、json 或 xml
+     * </p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String eventFormat() {
+        return eventFormat;
+    }
+
+    /**
+     * <p>
+     * format of the event subscriptions, plain, json or xml.
+     * 事件订阅格式，plain、json 或 xml
+     * </p>
+     *
+     * @param eventFormat a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption} object.
+     */
+    public InboundClientOption eventFormat(String eventFormat) {
+        this.eventFormat = eventFormat;
+        return this;
+    }
+
     /**
      * <p>performance.</p>
      *
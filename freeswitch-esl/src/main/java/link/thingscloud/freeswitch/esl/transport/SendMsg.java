@@ -17,6 +17,8 @@
 
 package link.thingscloud.freeswitch.esl.transport;
 
+import link.thingscloud.freeswitch.esl.transport.message.CommandTemplate;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -172,6 +174,22 @@ public class SendMsg {
         return msgLines;
     }
 
+    /**
+     * A template of this message, for messages sent over and over with different values. Each {@code %s} in
+     * the lines is an argument of the template, a {@code %} sent as is must be written {@code %%}.
+     * <pre>
+     *   static final CommandTemplate PLAYBACK = new SendMsg("%s").addCallCommand("execute")
+     *           .addExecuteAppName("playback").addExecuteAppArg("%s").toTemplate();
+     *
+     *   inboundClient.sendMessage(addr, PLAYBACK, uuid, "/tmp/welcome.wav");
+     * </pre>
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} of the lines of this message.
+     */
+    public CommandTemplate toTemplate() {
+        return CommandTemplate.of(String.join("\n", msgLines));
+    }
+
     /**
      * Indicate if message was constructed with a UUID.
      *
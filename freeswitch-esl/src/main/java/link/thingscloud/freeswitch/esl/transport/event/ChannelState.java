@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+/**
+ * The values of the {@code "Channel-State"} event header, see FreeSWITCH {@code switch_channel_state_t}.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public enum ChannelState {
+    /**
+     * {@code "CS_NEW"}
+     */
+    CS_NEW,
+    /**
+     * {@code "CS_INIT"}
+     */
+    CS_INIT,
+    /**
+     * {@code "CS_ROUTING"}
+     */
+    CS_ROUTING,
+    /**
+     * {@code "CS_SOFT_EXECUTE"}
+     */
+    CS_SOFT_EXECUTE,
+    /**
+     * {@code "CS_EXECUTE"}
+     */
+    CS_EXECUTE,
+    /**
+     * {@code "CS_EXCHANGE_MEDIA"}
+     */
+    CS_EXCHANGE_MEDIA,
+    /**
+     * {@code "CS_PARK"}
+     */
+    CS_PARK,
+    /**
+     * {@code "CS_CONSUME_MEDIA"}
+     */
+    CS_CONSUME_MEDIA,
+    /**
+     * {@code "CS_HIBERNATE"}
+     */
+    CS_HIBERNATE,
+    /**
+     * {@code "CS_RESET"}
+     */
+    CS_RESET,
+    /**
+     * {@code "CS_HANGUP"}
+     */
+    CS_HANGUP,
+    /**
+     * {@code "CS_REPORTING"}
+     */
+    CS_REPORTING,
+    /**
+     * {@code "CS_DESTROY"}
+     */
+    CS_DESTROY,
+    /**
+     * {@code "CS_NONE"}
+     */
+    CS_NONE;
+
+    private static final ChannelState[] VALUES = values();
+
+    /**
+     * <p>fromLiteral.</p>
+     *
+     * @param literal the header value, may be null.
+     * @return the channel state, or null if the literal is not a known state.
+     */
+    public static ChannelState fromLiteral(String literal) {
+        if (literal == null) {
+            return null;
+        }
+        for (ChannelState state : VALUES) {
+            if (state.name().equals(literal)) {
+                return state;
+            }
+        }
+        return null;
+    }
+}
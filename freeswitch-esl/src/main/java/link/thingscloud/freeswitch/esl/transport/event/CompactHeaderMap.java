@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact {@code Map<String, String>} for event headers.
+ * <p>
+ * The values of the well-known {@link EslEventHeaderNames} live in a flat array indexed through a perfect
+ * hash of the name, so their keys are not stored at all. Other headers, mostly {@code variable_*}, are kept
+ * in parallel key and value arrays with open addressing. There is no entry object per header; entries are
+ * only created while iterating, they write through to the map like the entries of {@link java.util.HashMap}.
+ * <p>
+ * Values may be null, keys must not be. Like {@link java.util.HashMap}, this class is not thread safe.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class CompactHeaderMap extends AbstractMap<String, String> {
+
+    private static final String[] KNOWN_NAMES = EslEventHeaderNames.values();
+    private static final int KNOWN_MULTIPLIER;
+    private static final int KNOWN_SHIFT;
+    /**
+     * perfect hash slot to index in {@link #KNOWN_NAMES}, -1 for unused slots
+     */
+    private static final int[] KNOWN_SLOTS;
+    private static final Object TOMBSTONE = new Object();
+    /**
+     * stands for a null value, a null in the value arrays is an absent header
+     */
+    private static final String NULL_VALUE = new String();
+
+    static {
+        int bits = 32 - Integer.numberOfLeadingZeros(KNOWN_NAMES.length * 2);
+        int[] slots = new int[1 << bits];
+        int multiplier = 0x9E3779B1;
+        // search for a multiplier mapping every known name to its own slot, growing the table if needed
+        while (!perfectHash(slots, multiplier, 32 - bits)) {
+            multiplier += 0x61C88646;
+            if (multiplier == 0x9E3779B1 + 0x61C88646 * 4096) {
+                bits++;
+                slots = new int[1 << bits];
+                multiplier = 0x9E3779B1;
+            }
+        }
+        KNOWN_MULTIPLIER = multiplier;
+        KNOWN_SHIFT = 32 - bits;
+        KNOWN_SLOTS = slots;
+    }
+
+    private String[] knownValues;
+    private int knownSize;
+    private Object[] keys;
+    private String[] values;
+    private int otherSize;
+    /**
+     * live and removed keys in {@link #keys}
+     */
+    private int otherUsed;
+    private int modCount;
+    /**
+     * every write, value changes included, unlike modCount
+     */
+    private int writeCount;
+    private Set<Entry<String, String>> entrySet;
+
+    /**
+     * <p>Constructor for CompactHeaderMap.</p>
+     */
+    public CompactHeaderMap() {
+        this(16);
+    }
+
+    /**
+     * <p>Constructor for CompactHeaderMap.</p>
+     *
+     * @param expectedSize the expected number of headers.
+     */
+    public CompactHeaderMap(int expectedSize) {
+        int capacity = tableSize(Math.max(expectedSize, 4));
+        this.keys = new Object[capacity];
+        this.values = new String[capacity];
+    }
+
+    /**
+     * <p>Constructor for CompactHeaderMap.</p>
+     *
+     * @param map the headers to copy.
+     */
+    public CompactHeaderMap(Map<String, String> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return knownSize + otherSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String get(Object key) {
+        return unmask(lookup(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String put(String key, String value) {
+        Objects.requireNonNull(key, "key");
+        writeCount++;
+        String stored = mask(value);
+        int known = knownIndex(key);
+        if (known >= 0) {
+            if (knownValues == null) {
+                knownValues = new String[KNOWN_NAMES.length];
+            }
+            String old = knownValues[known];
+            knownValues[known] = stored;
+            if (old == null) {
+                knownSize++;
+                modCount++;
+            }
+            return unmask(old);
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            String old = values[slot];
+            values[slot] = stored;
+            return unmask(old);
+        }
+        if ((otherUsed + 1) * 4 > keys.length * 3) {
+            resize(tableSize(otherSize + 1));
+        }
+        int mask = keys.length - 1;
+        for (slot = spread(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == null) {
+                otherUsed++;
+                break;
+            }
+            if (keys[slot] == TOMBSTONE) {
+                break;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = stored;
+        otherSize++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String name = (String) key;
+        int known = knownIndex(name);
+        if (known >= 0) {
+            if (knownValues == null || knownValues[known] == null) {
+                return null;
+            }
+            String old = knownValues[known];
+            knownValues[known] = null;
+            knownSize--;
+            modCount++;
+            writeCount++;
+            return unmask(old);
+        }
+        int slot = find(name);
+        return slot < 0 ? null : unmask(removeSlot(slot));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        if (knownValues != null) {
+            Arrays.fill(knownValues, null);
+        }
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        knownSize = 0;
+        otherSize = 0;
+        otherUsed = 0;
+        modCount++;
+        writeCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CompactHeaderMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    CompactHeaderMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * The number of writes to the map so far, so that values read from it can be checked for changes.
+     *
+     * @return a count that changes with every put, remove and entry value change.
+     */
+    int writeCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return the stored value, {@link #NULL_VALUE} for a null value, null if the header is absent
+     */
+    private String lookup(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String name = (String) key;
+        int known = knownIndex(name);
+        if (known >= 0) {
+            return knownValues == null ? null : knownValues[known];
+        }
+        int slot = find(name);
+        return slot < 0 ? null : values[slot];
+    }
+
+    private static String mask(String value) {
+        return value == null ? NULL_VALUE : value;
+    }
+
+    private static String unmask(String value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private int find(String name) {
+        int mask = keys.length - 1;
+        int hash = name.hashCode();
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            Object key = keys[slot];
+            if (key == null) {
+                return -1;
+            }
+            if (key == name || (key != TOMBSTONE && key.hashCode() == hash && key.equals(name))) {
+                return slot;
+            }
+        }
+    }
+
+    private String removeSlot(int slot) {
+        String old = values[slot];
+        keys[slot] = TOMBSTONE;
+        values[slot] = null;
+        otherSize--;
+        modCount++;
+        writeCount++;
+        return old;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new Object[capacity];
+        values = new String[capacity];
+        otherUsed = otherSize;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object key = oldKeys[i];
+            if (key != null && key != TOMBSTONE) {
+                int slot = spread(key.hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int knownIndex(String name) {
+        int known = KNOWN_SLOTS[(name.hashCode() * KNOWN_MULTIPLIER) >>> KNOWN_SHIFT];
+        if (known >= 0) {
+            String knownName = KNOWN_NAMES[known];
+            if (knownName == name || knownName.equals(name)) {
+                return known;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean perfectHash(int[] slots, int multiplier, int shift) {
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < KNOWN_NAMES.length; i++) {
+            int slot = (KNOWN_NAMES[i].hashCode() * multiplier) >>> shift;
+            if (slots[slot] >= 0) {
+                return false;
+            }
+            slots[slot] = i;
+        }
+        return true;
+    }
+
+    private static int tableSize(int size) {
+        // keep the load factor at most 3/4
+        int capacity = Integer.highestOneBit(Math.max(size * 4 / 3, 2) - 1) << 1;
+        return Math.max(capacity, 4);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+
+        /**
+         * next position, known values first and then the other slots
+         */
+        private int next;
+        private int current = -1;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < KNOWN_NAMES.length + keys.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            advance();
+            return new HeaderEntry(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current < KNOWN_NAMES.length) {
+                CompactHeaderMap.this.remove(KNOWN_NAMES[current]);
+            } else {
+                removeSlot(current - KNOWN_NAMES.length);
+            }
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        private void advance() {
+            while (next < KNOWN_NAMES.length) {
+                if (knownValues != null && knownValues[next] != null) {
+                    return;
+                }
+                next++;
+            }
+            while (next < KNOWN_NAMES.length + keys.length) {
+                Object key = keys[next - KNOWN_NAMES.length];
+                if (key != null && key != TOMBSTONE) {
+                    return;
+                }
+                next++;
+            }
+        }
+    }
+
+    /**
+     * an entry reading and writing the map, valid until a header is added or removed
+     */
+    private class HeaderEntry implements Entry<String, String> {
+
+        /**
+         * position as in {@link EntryIterator}, known values first and then the other slots
+         */
+        private final int index;
+
+        HeaderEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return index < KNOWN_NAMES.length ? KNOWN_NAMES[index] : (String) keys[index - KNOWN_NAMES.length];
+        }
+
+        @Override
+        public String getValue() {
+            return unmask(index < KNOWN_NAMES.length ? knownValues[index] : values[index - KNOWN_NAMES.length]);
+        }
+
+        @Override
+        public String setValue(String value) {
+            String old = getValue();
+            writeCount++;
+            if (index < KNOWN_NAMES.length) {
+                knownValues[index] = mask(value);
+            } else {
+                values[index - KNOWN_NAMES.length] = mask(value);
+            }
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -17,17 +17,22 @@
 
 package link.thingscloud.freeswitch.esl.transport.event;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.Recycler;
+import io.netty.util.ReferenceCounted;
 import link.thingscloud.freeswitch.esl.transport.message.EslHeaders;
 import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
 import link.thingscloud.freeswitch.esl.transport.util.HeaderParser;
+import link.thingscloud.freeswitch.esl.transport.util.UrlDecoder;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * FreeSWITCH Event Socket <strong>events</strong> are decoded into this data object.
@@ -42,19 +47,82 @@ import java.util.Map;
  * <p>
  * Any eventBody lines are cached in a list.
  * <p>
+ * A few headers read on nearly every event, such as "Unique-ID" and "Channel-State", are also kept in a
+ * fixed slot table filled during decode, their typed accessors parse the value once and cache it. A change
+ * to the map of {@link #getEventHeaders()} drops the slot table and the cached values, they are read again.
+ * <p>
+ * A {@code text/event-json} event is parsed from the frame bytes by a streaming parser, its values are
+ * not URL encoded and its {@code "_body"} member provides the eventBody lines. A {@code text/event-xml}
+ * event is pulled through a StAX reader the same way, its {@code <body>} element provides the eventBody lines.
+ * <p>
  * The messageHeader lines from the original message are cached in a map keyed by {@link link.thingscloud.freeswitch.esl.transport.message.EslHeaders.Name}.
+ * <p>
+ * When the original message still holds its body as a buffer slice, the eventHeader and eventBody
+ * lines are only parsed when first requested. The event shares the reference count of that message,
+ * a listener that keeps the event beyond its callback must {@link #retain()} it and release it later.
  *
  * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
  * @version $Id: $Id
  * @see EslEventHeaderNames
  */
 @Slf4j
-public class EslEvent {
+public class EslEvent implements ReferenceCounted {
+
+    private static final Recycler<EslEvent> RECYCLER = new Recycler<EslEvent>() {
+        @Override
+        protected EslEvent newObject(Handle<EslEvent> handle) {
+            return new EslEvent(handle);
+        }
+    };
+
+    static final int UNIQUE_ID = 0;
+    static final int CHANNEL_CALL_UUID = 1;
+    static final int CHANNEL_STATE = 2;
+    static final int ANSWER_STATE = 3;
+    static final int CALLER_CALLER_ID_NUMBER = 4;
+    static final int CALLER_DESTINATION_NUMBER = 5;
+    static final int HANGUP_CAUSE = 6;
+    static final int EVENT_DATE_TIMESTAMP = 7;
+    /**
+     * header names of the slot table, by slot
+     */
+    static final String[] HOT_HEADER_NAMES = {
+            EslEventHeaderNames.UNIQUE_ID,
+            EslEventHeaderNames.CHANNEL_CALL_UUID,
+            EslEventHeaderNames.CHANNEL_STATE,
+            EslEventHeaderNames.ANSWER_STATE,
+            EslEventHeaderNames.CALLER_CALLER_ID_NUMBER,
+            EslEventHeaderNames.CALLER_DESTINATION_NUMBER,
+            EslEventHeaderNames.HANGUP_CAUSE,
+            EslEventHeaderNames.EVENT_DATE_TIMESTAMP
+    };
+    static final int ALL_HOT_HEADERS = (1 << HOT_HEADER_NAMES.length) - 1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
 
-    private final Map<EslHeaders.Name, String> messageHeaders;
-    private final Map<String, String> eventHeaders;
-    private final List<String> eventBody;
+    private EslMessage rawMessage;
+    private Map<EslHeaders.Name, String> messageHeaders;
+    private volatile Map<String, String> eventHeaders;
+    private List<String> eventBody;
     private final boolean decodeEventHeaders = true;
+    @SuppressWarnings("rawtypes")
+    private final Recycler.Handle handle;
+    /**
+     * emptied header map and body list of a pooled event, reused by its next decode
+     */
+    private CompactHeaderMap spareHeaders;
+    private List<String> spareBody;
+    /**
+     * values of the well known headers, a slot is valid once its bit is set in hotHeadersFilled
+     */
+    final String[] hotHeaders = new String[HOT_HEADER_NAMES.length];
+    int hotHeadersFilled;
+    /**
+     * write count of the header map when the slot table and the typed values were read from it
+     */
+    int hotHeadersWriteCount;
+    private volatile long eventDateTimestamp = NO_TIMESTAMP;
+    private volatile ChannelState channelState;
+    private volatile UUID uniqueUuid;
 
     /**
      * <p>Constructor for EslEvent.</p>
@@ -72,16 +140,60 @@ public class EslEvent {
      * @param parseCommandReply a boolean.
      */
     public EslEvent(EslMessage rawMessage, boolean parseCommandReply) {
+        this.handle = null;
+        init(rawMessage, parseCommandReply);
+    }
+
+    /**
+     * Constructor for events whose headers are already decoded, see {@link EslEventCodec}.
+     *
+     * @param rawMessage   the message carrying the message headers.
+     * @param eventHeaders the decoded event headers.
+     * @param eventBody    the event body lines.
+     */
+    EslEvent(EslMessage rawMessage, Map<String, String> eventHeaders, List<String> eventBody) {
+        this.handle = null;
+        this.rawMessage = rawMessage;
+        this.messageHeaders = rawMessage.getHeaders();
+        publish(eventHeaders, eventBody);
+    }
+
+    /**
+     * Constructor for pooled events.
+     *
+     * @param handle the recycler handle.
+     */
+    EslEvent(Recycler.Handle<? extends EslEvent> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * An event from the pool, it goes back to the pool once its last reference is released and must not
+     * be used any more after that, see
+     * {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#pooledEvents(boolean)}.
+     *
+     * @param rawMessage a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent} object.
+     */
+    public static EslEvent newInstance(EslMessage rawMessage) {
+        EslEvent event = RECYCLER.get();
+        event.init(rawMessage, false);
+        return event;
+    }
+
+    final void init(EslMessage rawMessage, boolean parseCommandReply) {
+        this.rawMessage = rawMessage;
         messageHeaders = rawMessage.getHeaders();
-        eventHeaders = new HashMap<>(rawMessage.getBodyLines().size());
-        eventBody = new ArrayList<>();
-        // plain or xml body
+        // plain, json or xml body
         if (rawMessage.getContentType().equals(EslHeaders.Value.TEXT_EVENT_PLAIN)) {
-            parsePlainBody(rawMessage.getBodyLines());
+            decodeIfNotRaw();
+        } else if (rawMessage.getContentType().equals(EslHeaders.Value.TEXT_EVENT_JSON)) {
+            // parsed up front, the event stays usable once the message is released, as are xml events
+            parseJsonBody();
         } else if (rawMessage.getContentType().equals(EslHeaders.Value.TEXT_EVENT_XML)) {
-            throw new IllegalStateException("XML events are not yet supported");
+            parseXmlBody();
         } else if (rawMessage.getContentType().equals(EslHeaders.Value.COMMAND_REPLY) && parseCommandReply) {
-            parsePlainBody(rawMessage.getBodyLines());
+            decodeIfNotRaw();
         } else {
             throw new IllegalStateException("Unexpected EVENT content-type: " +
                     rawMessage.getContentType());
@@ -102,20 +214,32 @@ public class EslEvent {
     /**
      * The event headers of this event. The headers are parsed and stored in a map keyed by the string
      * name of the header, and the string mapped value is the parsed content of the event header line
-     * (ie, it does not include the header name).
+     * (ie, it does not include the header name). The map is a {@link CompactHeaderMap}.
      *
      * @return map of event header values
      */
     public Map<String, String> getEventHeaders() {
+        decode();
         return eventHeaders;
     }
 
+    /**
+     * The value of a single event header, see {@link #getEventHeaders()}.
+     *
+     * @param headerName the event header name
+     * @return the decoded value, or null if the event has no such header
+     */
+    public String getEventHeader(String headerName) {
+        return getEventHeaders().get(headerName);
+    }
+
     /**
      * Any event body lines that were present in the event.
      *
      * @return list of decoded event body lines, may be an empty list.
      */
     public List<String> getEventBodyLines() {
+        decode();
         return eventBody;
     }
 
@@ -125,7 +249,7 @@ public class EslEvent {
      * @return the string value of the event header "Event-Name"
      */
     public String getEventName() {
-        return getEventHeaders().get(EslEventHeaderNames.EVENT_NAME);
+        return getEventHeader(EslEventHeaderNames.EVENT_NAME);
     }
 
     /**
@@ -134,7 +258,13 @@ public class EslEvent {
      * @return long value of the event header "Event-Date-Timestamp"
      */
     public long getEventDateTimestamp() {
-        return Long.valueOf(getEventHeaders().get(EslEventHeaderNames.EVENT_DATE_TIMESTAMP));
+        dropStaleHotHeaders();
+        long timestamp = eventDateTimestamp;
+        if (timestamp == NO_TIMESTAMP) {
+            timestamp = Long.parseLong(hotHeader(EVENT_DATE_TIMESTAMP));
+            eventDateTimestamp = timestamp;
+        }
+        return timestamp;
     }
 
     /**
@@ -143,7 +273,7 @@ public class EslEvent {
      * @return long value of the event header "Event-Date-Local"
      */
     public String getEventDateLocal() {
-        return getEventHeaders().get(EslEventHeaderNames.EVENT_DATE_LOCAL);
+        return getEventHeader(EslEventHeaderNames.EVENT_DATE_LOCAL);
     }
 
     /**
@@ -152,7 +282,145 @@ public class EslEvent {
      * @return long value of the event header "Event-Date-GMT"
      */
     public String getEventDateGmt() {
-        return getEventHeaders().get(EslEventHeaderNames.EVENT_DATE_GMT);
+        return getEventHeader(EslEventHeaderNames.EVENT_DATE_GMT);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Unique-ID"
+     */
+    public String getUniqueId() {
+        return hotHeader(UNIQUE_ID);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the event header "Unique-ID" as a UUID, or null if the event has no such header
+     * @throws java.lang.IllegalArgumentException if the value is not a UUID
+     */
+    public UUID getUniqueUuid() {
+        dropStaleHotHeaders();
+        UUID uuid = uniqueUuid;
+        if (uuid == null) {
+            String value = hotHeader(UNIQUE_ID);
+            if (value == null) {
+                return null;
+            }
+            uuid = UUID.fromString(value);
+            uniqueUuid = uuid;
+        }
+        return uuid;
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Channel-Call-UUID"
+     */
+    public String getChannelCallUuid() {
+        return hotHeader(CHANNEL_CALL_UUID);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the event header "Channel-State", or null if the event has no such header or an unknown state
+     */
+    public ChannelState getChannelState() {
+        dropStaleHotHeaders();
+        ChannelState state = channelState;
+        if (state == null) {
+            state = ChannelState.fromLiteral(hotHeader(CHANNEL_STATE));
+            channelState = state;
+        }
+        return state;
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Answer-State"
+     */
+    public String getAnswerState() {
+        return hotHeader(ANSWER_STATE);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Caller-Caller-ID-Number"
+     */
+    public String getCallerIdNumber() {
+        return hotHeader(CALLER_CALLER_ID_NUMBER);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Caller-Destination-Number"
+     */
+    public String getCallerDestinationNumber() {
+        return hotHeader(CALLER_DESTINATION_NUMBER);
+    }
+
+    /**
+     * Convenience method.
+     *
+     * @return the string value of the event header "Hangup-Cause"
+     */
+    public String getHangupCause() {
+        return hotHeader(HANGUP_CAUSE);
+    }
+
+    /**
+     * The value of a well known header from the slot table.
+     *
+     * @param slot one of the slot constants, such as {@link #UNIQUE_ID}
+     * @return the decoded value, or null if the event has no such header
+     */
+    String hotHeader(int slot) {
+        decode();
+        dropStaleHotHeaders();
+        int bit = 1 << slot;
+        if ((hotHeadersFilled & bit) == 0) {
+            hotHeaders[slot] = eventHeaders.get(HOT_HEADER_NAMES[slot]);
+            hotHeadersFilled |= bit;
+        }
+        return hotHeaders[slot];
+    }
+
+    /**
+     * @return the header map once it is decoded, null before.
+     */
+    Map<String, String> decodedHeaderMap() {
+        return eventHeaders;
+    }
+
+    /**
+     * Remembers the write count of the header map the slot table is read from.
+     */
+    final void trackWrites(Map<String, String> headers) {
+        if (headers instanceof CompactHeaderMap) {
+            hotHeadersWriteCount = ((CompactHeaderMap) headers).writeCount();
+        }
+    }
+
+    /**
+     * Drops the slot table and the typed values once the header map they were read from has been changed.
+     */
+    final void dropStaleHotHeaders() {
+        Map<String, String> headers = decodedHeaderMap();
+        if (headers instanceof CompactHeaderMap && ((CompactHeaderMap) headers).writeCount() != hotHeadersWriteCount) {
+            synchronized (this) {
+                trackWrites(headers);
+                hotHeadersFilled = 0;
+                eventDateTimestamp = NO_TIMESTAMP;
+                channelState = null;
+                uniqueUuid = null;
+            }
+        }
     }
 
     /**
@@ -161,27 +429,176 @@ public class EslEvent {
      * @return true if the eventBody list is not empty.
      */
     public boolean hasEventBody() {
-        return !eventBody.isEmpty();
+        return !getEventBodyLines().isEmpty();
+    }
+
+    /**
+     * A detached copy of this event, its headers and body decoded into Strings. The copy holds no buffer and is
+     * not pooled, it stays usable once this event is released and does not need to be released itself.
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent} object.
+     */
+    public EslEvent copy() {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            EslEventCodec.encode(this, buffer);
+            return EslEventCodec.decode(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int refCnt() {
+        return rawMessage.refCnt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslEvent retain() {
+        rawMessage.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslEvent retain(int increment) {
+        rawMessage.retain(increment);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslEvent touch() {
+        rawMessage.touch();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslEvent touch(Object hint) {
+        rawMessage.touch(hint);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean release() {
+        return recycleIfReleased(rawMessage.release());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean release(int decrement) {
+        return recycleIfReleased(rawMessage.release(decrement));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean recycleIfReleased(boolean released) {
+        if (released && handle != null) {
+            reset();
+            handle.recycle(this);
+        }
+        return released;
+    }
+
+    /**
+     * Clears the state of a pooled event before it goes back to the pool.
+     */
+    void reset() {
+        spare(eventHeaders, eventBody);
+        rawMessage = null;
+        messageHeaders = null;
+        eventHeaders = null;
+        eventBody = null;
+        Arrays.fill(hotHeaders, null);
+        hotHeadersFilled = 0;
+        hotHeadersWriteCount = 0;
+        eventDateTimestamp = NO_TIMESTAMP;
+        channelState = null;
+        uniqueUuid = null;
+    }
+
+    /**
+     * Keeps the header map and body list of a pooled event for its next use.
+     */
+    final void spare(Map<String, String> headers, List<String> body) {
+        if (headers instanceof CompactHeaderMap) {
+            headers.clear();
+            spareHeaders = (CompactHeaderMap) headers;
+        }
+        if (body instanceof ArrayList) {
+            body.clear();
+            spareBody = body;
+        }
+    }
+
+    final Map<String, String> newHeaders(int expectedSize) {
+        Map<String, String> headers = spareHeaders;
+        if (headers == null) {
+            return new CompactHeaderMap(expectedSize);
+        }
+        spareHeaders = null;
+        return headers;
+    }
+
+    final List<String> newBody() {
+        List<String> body = spareBody;
+        if (body == null) {
+            return new ArrayList<>();
+        }
+        spareBody = null;
+        return body;
+    }
+
+    private void decodeIfNotRaw() {
+        if (!rawMessage.hasRawBody()) {
+            parsePlainBody(rawMessage.getBodyLines());
+        }
+    }
+
+    private void decode() {
+        if (eventHeaders == null) {
+            synchronized (this) {
+                if (eventHeaders == null) {
+                    parsePlainBody(rawMessage.getBodyLines());
+                }
+            }
+        }
     }
 
     private void parsePlainBody(final List<String> rawBodyLines) {
+        Map<String, String> headers = newHeaders(rawBodyLines.size());
+        List<String> body = newBody();
         boolean isEventBody = false;
         for (String rawLine : rawBodyLines) {
             if (!isEventBody) {
+                if (rawLine.isEmpty()) {
+                    // blank line terminating the event headers
+                    continue;
+                }
                 // split the line
                 String[] headerParts = HeaderParser.splitHeader(rawLine);
+                headerParts[0] = HeaderNameTable.resolve(headerParts[0]);
                 if (decodeEventHeaders) {
-                    try {
-                        String decodedValue = URLDecoder.decode(headerParts[1], "UTF-8");
-                        log.trace("decoded from: [{}]", headerParts[1]);
-                        log.trace("decoded   to: [{}]", decodedValue);
-                        eventHeaders.put(headerParts[0], decodedValue);
-                    } catch (UnsupportedEncodingException e) {
-                        log.warn("Could not URL decode [{}]", headerParts[1]);
-                        eventHeaders.put(headerParts[0], headerParts[1]);
-                    }
+                    headers.put(headerParts[0], decodeHeaderValue(headerParts[1]));
                 } else {
-                    eventHeaders.put(headerParts[0], headerParts[1]);
+                    headers.put(headerParts[0], headerParts[1]);
                 }
                 if (headerParts[0].equals(EslEventHeaderNames.CONTENT_LENGTH)) {
                     // the remaining lines will be considered body lines
@@ -190,11 +607,70 @@ public class EslEvent {
             } else {
                 // ignore blank line (always is one following the content-length
                 if (rawLine.length() > 0) {
-                    eventBody.add(rawLine);
+                    body.add(rawLine);
+                }
+            }
+        }
+        this.eventBody = body;
+        fillHotHeaders(headers);
+        // publish last, the volatile write makes eventBody and the slot table visible as well
+        this.eventHeaders = headers;
+    }
+
+    private void parseJsonBody() {
+        ByteBuf buffer = rawBodyBuffer();
+        Map<String, String> headers = newHeaders(64);
+        String bodyText = JsonEventParser.parse(buffer, buffer.readerIndex(), buffer.writerIndex(), headers);
+        publish(headers, bodyText);
+    }
+
+    private void parseXmlBody() {
+        Map<String, String> headers = newHeaders(64);
+        String bodyText = XmlEventParser.parse(rawBodyBuffer(), headers);
+        publish(headers, bodyText);
+    }
+
+    private ByteBuf rawBodyBuffer() {
+        if (rawMessage.hasRawBody()) {
+            return rawMessage.getRawBody();
+        }
+        return Unpooled.wrappedBuffer(String.join("\n", rawMessage.getBodyLines()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void publish(Map<String, String> headers, String bodyText) {
+        List<String> body = newBody();
+        if (bodyText != null) {
+            for (String line : bodyText.split("\n")) {
+                // ignore blank lines, as for plain events
+                if (!line.isEmpty()) {
+                    body.add(line);
                 }
             }
         }
+        publish(headers, body);
+    }
 
+    private void publish(Map<String, String> headers, List<String> body) {
+        this.eventBody = body;
+        fillHotHeaders(headers);
+        this.eventHeaders = headers;
+    }
+
+    private void fillHotHeaders(Map<String, String> headers) {
+        for (int i = 0; i < HOT_HEADER_NAMES.length; i++) {
+            hotHeaders[i] = headers.get(HOT_HEADER_NAMES[i]);
+        }
+        hotHeadersFilled = ALL_HOT_HEADERS;
+        trackWrites(headers);
+    }
+
+    static String decodeHeaderValue(String value) {
+        String decodedValue = UrlDecoder.decode(value);
+        if (decodedValue != value) {
+            log.trace("decoded from: [{}]", value);
+            log.trace("decoded   to: [{}]", decodedValue);
+        }
+        return decodedValue;
     }
 
     /**
@@ -207,9 +683,9 @@ public class EslEvent {
         sb.append("] headers=");
         sb.append(messageHeaders.size());
         sb.append(", eventHeaders=");
-        sb.append(eventHeaders.size());
+        sb.append(getEventHeaders().size());
         sb.append(", eventBody=");
-        sb.append(eventBody.size());
+        sb.append(getEventBodyLines().size());
         sb.append(" lines.");
         return sb.toString();
     }
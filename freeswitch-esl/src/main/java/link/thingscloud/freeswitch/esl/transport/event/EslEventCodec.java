@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessageCodec;
+import link.thingscloud.freeswitch.esl.transport.util.Varints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format of an {@link EslEvent}, for forwarding or persisting decoded events without
+ * re-serializing their maps as text.
+ * <pre>
+ *   version   1 byte, {@link EslMessageCodec#VERSION}
+ *   kind      1 byte, {@link EslMessageCodec#KIND_EVENT}
+ *   headers   the message headers, as written by {@link EslMessageCodec#writeHeaders(Map, ByteBuf)}
+ *   event     varint count, then per header a varint name id, the name itself when the id is 0, and the value
+ *             as a nullable string, its length + 1 with 0 standing for null
+ *   body      varint count, then the event body lines
+ * </pre>
+ * Strings are varint length prefixed UTF-8. Event header values are stored decoded, they are not URL encoded
+ * again. Name ids index a fixed table of the {@link EslEventHeaderNames} known to the decoder, new names
+ * are only ever appended to it; decoded names are the canonical instances of the {@link HeaderNameTable}.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ * @see EslMessageCodec
+ */
+public class EslEventCodec {
+
+    /**
+     * event header name ids of version 1, the id is the index + 1
+     */
+    private static final String[] NAMES = {
+            EslEventHeaderNames.EVENT_NAME,
+            EslEventHeaderNames.EVENT_DATE_LOCAL,
+            EslEventHeaderNames.EVENT_DATE_GMT,
+            EslEventHeaderNames.EVENT_DATE_TIMESTAMP,
+            EslEventHeaderNames.EVENT_CALLING_FILE,
+            EslEventHeaderNames.EVENT_CALLING_FUNCTION,
+            EslEventHeaderNames.EVENT_CALLING_LINE_NUMBER,
+            EslEventHeaderNames.FREESWITCH_HOSTNAME,
+            EslEventHeaderNames.FREESWITCH_IPV4,
+            EslEventHeaderNames.FREESWITCH_IPV6,
+            EslEventHeaderNames.CORE_UUID,
+            EslEventHeaderNames.CONTENT_LENGTH,
+            EslEventHeaderNames.JOB_COMMAND,
+            EslEventHeaderNames.JOB_UUID,
+            EslEventHeaderNames.FREESWITCH_SWITCHNAME,
+            EslEventHeaderNames.EVENT_SEQUENCE,
+            EslEventHeaderNames.EVENT_SUBCLASS,
+            EslEventHeaderNames.UNIQUE_ID,
+            EslEventHeaderNames.CHANNEL_NAME,
+            EslEventHeaderNames.CHANNEL_STATE,
+            EslEventHeaderNames.CHANNEL_STATE_NUMBER,
+            EslEventHeaderNames.CHANNEL_CALL_STATE,
+            EslEventHeaderNames.CHANNEL_CALL_UUID,
+            EslEventHeaderNames.CALL_DIRECTION,
+            EslEventHeaderNames.ANSWER_STATE,
+            EslEventHeaderNames.CALLER_UNIQUE_ID,
+            EslEventHeaderNames.CALLER_CALLER_ID_NAME,
+            EslEventHeaderNames.CALLER_CALLER_ID_NUMBER,
+            EslEventHeaderNames.CALLER_DESTINATION_NUMBER,
+            EslEventHeaderNames.CALLER_CONTEXT,
+            EslEventHeaderNames.OTHER_LEG_UNIQUE_ID,
+            EslEventHeaderNames.HANGUP_CAUSE,
+            EslEventHeaderNames.APPLICATION,
+            EslEventHeaderNames.APPLICATION_DATA,
+            EslEventHeaderNames.APPLICATION_RESPONSE,
+            EslEventHeaderNames.APPLICATION_UUID
+    };
+    private static final Map<String, Integer> IDS = new HashMap<>(NAMES.length * 2);
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            IDS.put(NAMES[i], i + 1);
+        }
+    }
+
+    private EslEventCodec() {
+    }
+
+    /**
+     * <p>encode.</p>
+     *
+     * @param event a {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent} object.
+     * @param out   a {@link io.netty.buffer.ByteBuf} object.
+     */
+    public static void encode(EslEvent event, ByteBuf out) {
+        EslMessageCodec.writePreamble(out, EslMessageCodec.KIND_EVENT);
+        EslMessageCodec.writeHeaders(event.getMessageHeaders(), out);
+        Map<String, String> headers = event.getEventHeaders();
+        Varints.writeVarint(out, headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            Integer id = IDS.get(header.getKey());
+            if (id != null) {
+                Varints.writeVarint(out, id);
+            } else {
+                Varints.writeVarint(out, 0);
+                Varints.writeString(out, header.getKey());
+            }
+            Varints.writeNullableString(out, header.getValue());
+        }
+        List<String> body = event.getEventBodyLines();
+        Varints.writeVarint(out, body.size());
+        for (String line : body) {
+            Varints.writeString(out, line);
+        }
+    }
+
+    /**
+     * Decodes an event, all its values are read into Strings so the input buffer may be released afterwards.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent} object.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the input is not an event of a known version.
+     */
+    public static EslEvent decode(ByteBuf in) {
+        EslMessageCodec.readPreamble(in, EslMessageCodec.KIND_EVENT);
+        EslMessage message = EslMessageCodec.readHeaders(in);
+        int count = Varints.readVarint(in);
+        Map<String, String> headers = new CompactHeaderMap(Math.min(count, in.readableBytes()));
+        for (int i = 0; i < count; i++) {
+            headers.put(readName(in), Varints.readNullableString(in));
+        }
+        int lines = Varints.readVarint(in);
+        List<String> body = new ArrayList<>(Math.min(lines, in.readableBytes()));
+        for (int i = 0; i < lines; i++) {
+            body.add(Varints.readString(in));
+        }
+        return new EslEvent(message, headers, body);
+    }
+
+    private static String readName(ByteBuf in) {
+        int id = Varints.readVarint(in);
+        if (id == 0) {
+            int length = Varints.readLength(in);
+            // resolved straight from the input bytes
+            String name = HeaderNameTable.resolve(in, in.readerIndex(), length);
+            in.skipBytes(length);
+            return name;
+        }
+        if (id > NAMES.length) {
+            throw new EslDecoderException("Unknown binary event header id " + id);
+        }
+        return NAMES[id - 1];
+    }
+}
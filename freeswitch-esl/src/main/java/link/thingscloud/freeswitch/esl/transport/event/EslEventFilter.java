@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import link.thingscloud.freeswitch.esl.transport.util.ByteScanner;
+import link.thingscloud.freeswitch.esl.transport.util.HeaderParser;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>EslEventFilter class.</p>
+ * <p>
+ * Client side allow and deny lists of event names and {@code Event-Subclass} values. The frame decoder
+ * checks them against the raw bytes of a {@code text/event-plain} body and skips dropped events without
+ * decoding them, see {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#eventFilter()}.
+ * <p>
+ * An event is dropped if its name is not allowed or is denied. A {@code CUSTOM} event is also dropped if
+ * its subclass is not allowed or is denied. Empty allow lists allow everything, and {@code BACKGROUND_JOB}
+ * is never dropped, as it carries the results of the async api commands.
+ * <p>
+ * The lists may be changed at any time, an update is seen by the next decoded event.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class EslEventFilter {
+
+    private static final String BACKGROUND_JOB = "BACKGROUND_JOB";
+    private static final String[] EMPTY = new String[0];
+    private static final byte LF = 10;
+    private static final byte COLON = ':';
+
+    private volatile String[] allowEvents = EMPTY;
+    private volatile String[] denyEvents = EMPTY;
+    private volatile String[] allowSubclasses = EMPTY;
+    private volatile String[] denySubclasses = EMPTY;
+
+    /**
+     * <p>allowEvents.</p>
+     *
+     * @param eventNames a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter allowEvents(String... eventNames) {
+        allowEvents = merge(allowEvents, eventNames);
+        return this;
+    }
+
+    /**
+     * <p>denyEvents.</p>
+     *
+     * @param eventNames a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter denyEvents(String... eventNames) {
+        denyEvents = merge(denyEvents, eventNames);
+        return this;
+    }
+
+    /**
+     * <p>allowSubclasses.</p>
+     *
+     * @param subclasses a {@link java.lang.String} object, such as {@code sofia::register}.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter allowSubclasses(String... subclasses) {
+        allowSubclasses = merge(allowSubclasses, subclasses);
+        return this;
+    }
+
+    /**
+     * <p>denySubclasses.</p>
+     *
+     * @param subclasses a {@link java.lang.String} object, such as {@code sofia::register}.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter denySubclasses(String... subclasses) {
+        denySubclasses = merge(denySubclasses, subclasses);
+        return this;
+    }
+
+    /**
+     * <p>clear.</p>
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     */
+    public EslEventFilter clear() {
+        allowEvents = EMPTY;
+        denyEvents = EMPTY;
+        allowSubclasses = EMPTY;
+        denySubclasses = EMPTY;
+        return this;
+    }
+
+    /**
+     * <p>isEmpty.</p>
+     *
+     * @return true if no event is ever dropped.
+     */
+    public boolean isEmpty() {
+        return allowEvents.length == 0 && denyEvents.length == 0
+                && allowSubclasses.length == 0 && denySubclasses.length == 0;
+    }
+
+    /**
+     * <p>accept.</p>
+     *
+     * @param eventName a {@link java.lang.String} object.
+     * @param subclass  a {@link java.lang.String} object, null if the event has none.
+     * @return false if the event should be dropped.
+     */
+    public boolean accept(String eventName, String subclass) {
+        if (eventName == null || BACKGROUND_JOB.equals(eventName)) {
+            return true;
+        }
+        String[] allow = allowEvents;
+        if (allow.length > 0 && !contains(allow, eventName)) {
+            return false;
+        }
+        if (contains(denyEvents, eventName)) {
+            return false;
+        }
+        if (subclass == null) {
+            return true;
+        }
+        allow = allowSubclasses;
+        if (allow.length > 0 && !contains(allow, subclass)) {
+            return false;
+        }
+        return !contains(denySubclasses, subclass);
+    }
+
+    /**
+     * Checks a {@code text/event-plain} body, reading only the {@code Event-Name} and, when needed, the
+     * {@code Event-Subclass} header bytes. Nothing is allocated.
+     *
+     * @param body   a {@link io.netty.buffer.ByteBuf} object.
+     * @param index  the index of the first body byte.
+     * @param length the number of body bytes.
+     * @return false if the event should be dropped.
+     */
+    public boolean accept(ByteBuf body, int index, int length) {
+        if (isEmpty()) {
+            return true;
+        }
+        int end = index + length;
+        // FreeSWITCH always writes Event-Name first
+        int lineEnd = lineEnd(body, index, end);
+        int valueStart = valueStart(body, index, lineEnd, EslEventHeaderNames.EVENT_NAME);
+        if (valueStart < 0) {
+            return true;
+        }
+        int valueEnd = valueEnd(body, valueStart, lineEnd);
+        if (equalsDecoded(body, valueStart, valueEnd, BACKGROUND_JOB)) {
+            return true;
+        }
+        String[] allow = allowEvents;
+        if (allow.length > 0 && !containsDecoded(allow, body, valueStart, valueEnd)) {
+            return false;
+        }
+        if (containsDecoded(denyEvents, body, valueStart, valueEnd)) {
+            return false;
+        }
+        String[] allowSub = allowSubclasses;
+        String[] denySub = denySubclasses;
+        if (allowSub.length == 0 && denySub.length == 0) {
+            return true;
+        }
+        for (int lineStart = lineEnd + 1; lineStart < end; lineStart = lineEnd + 1) {
+            lineEnd = lineEnd(body, lineStart, end);
+            if (lineEnd == lineStart) {
+                // end of the event headers
+                break;
+            }
+            valueStart = valueStart(body, lineStart, lineEnd, EslEventHeaderNames.EVENT_SUBCLASS);
+            if (valueStart >= 0) {
+                valueEnd = valueEnd(body, valueStart, lineEnd);
+                if (allowSub.length > 0 && !containsDecoded(allowSub, body, valueStart, valueEnd)) {
+                    return false;
+                }
+                return !containsDecoded(denySub, body, valueStart, valueEnd);
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(String[] values, String value) {
+        for (String v : values) {
+            if (v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int lineEnd(ByteBuf body, int index, int end) {
+        int lineFeed = ByteScanner.indexOf(body, index, end, LF);
+        return lineFeed < 0 ? end : lineFeed;
+    }
+
+    /**
+     * @return the index of the header value, -1 if the line is not the named header
+     */
+    private static int valueStart(ByteBuf body, int lineStart, int lineEnd, String headerName) {
+        int length = headerName.length();
+        if (lineEnd - lineStart <= length || body.getByte(lineStart + length) != COLON) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (body.getByte(lineStart + i) != headerName.charAt(i)) {
+                return -1;
+            }
+        }
+        int index = lineStart + length + 1;
+        while (index < lineEnd && HeaderParser.isWhitespace(body.getByte(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int valueEnd(ByteBuf body, int valueStart, int lineEnd) {
+        while (lineEnd > valueStart && HeaderParser.isWhitespace(body.getByte(lineEnd - 1))) {
+            lineEnd--;
+        }
+        return lineEnd;
+    }
+
+    private static boolean containsDecoded(String[] values, ByteBuf body, int index, int end) {
+        for (String value : values) {
+            if (equalsDecoded(body, index, end, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares URL encoded bytes with an ASCII value, decoding {@code %XX} and {@code '+'} on the fly.
+     */
+    private static boolean equalsDecoded(ByteBuf body, int index, int end, String value) {
+        int length = value.length();
+        int i = 0;
+        while (index < end) {
+            if (i == length) {
+                return false;
+            }
+            int b = body.getByte(index);
+            if (b == '%' && index + 2 < end) {
+                int high = Character.digit(body.getByte(index + 1), 16);
+                int low = Character.digit(body.getByte(index + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    b = (high << 4) | low;
+                    index += 2;
+                }
+            } else if (b == '+') {
+                b = ' ';
+            }
+            if (b != value.charAt(i)) {
+                return false;
+            }
+            index++;
+            i++;
+        }
+        return i == length;
+    }
+
+    private static String[] merge(String[] current, String[] values) {
+        if (values == null || values.length == 0) {
+            return current;
+        }
+        Set<String> merged = new LinkedHashSet<>(Arrays.asList(current));
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                merged.add(value.trim());
+            }
+        }
+        return merged.toArray(EMPTY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "EslEventFilter{allowEvents=" + Arrays.toString(allowEvents)
+                + ", denyEvents=" + Arrays.toString(denyEvents)
+                + ", allowSubclasses=" + Arrays.toString(allowSubclasses)
+                + ", denySubclasses=" + Arrays.toString(denySubclasses) + '}';
+    }
+}
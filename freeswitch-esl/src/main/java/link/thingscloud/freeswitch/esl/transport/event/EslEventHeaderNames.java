@@ -17,6 +17,11 @@
 
 package link.thingscloud.freeswitch.esl.transport.event;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * <p>EslEventHeaderNames class.</p>
  *
@@ -81,7 +86,114 @@ public class EslEventHeaderNames {
      */
     public static final String JOB_UUID = "Job-UUID";
 
+    /**
+     * {@code "FreeSWITCH-Switchname"}
+     */
+    public static final String FREESWITCH_SWITCHNAME = "FreeSWITCH-Switchname";
+    /**
+     * {@code "Event-Sequence"}
+     */
+    public static final String EVENT_SEQUENCE = "Event-Sequence";
+    /**
+     * {@code "Event-Subclass"}
+     */
+    public static final String EVENT_SUBCLASS = "Event-Subclass";
+    /**
+     * {@code "Unique-ID"}
+     */
+    public static final String UNIQUE_ID = "Unique-ID";
+    /**
+     * {@code "Channel-Name"}
+     */
+    public static final String CHANNEL_NAME = "Channel-Name";
+    /**
+     * {@code "Channel-State"}
+     */
+    public static final String CHANNEL_STATE = "Channel-State";
+    /**
+     * {@code "Channel-State-Number"}
+     */
+    public static final String CHANNEL_STATE_NUMBER = "Channel-State-Number";
+    /**
+     * {@code "Channel-Call-State"}
+     */
+    public static final String CHANNEL_CALL_STATE = "Channel-Call-State";
+    /**
+     * {@code "Channel-Call-UUID"}
+     */
+    public static final String CHANNEL_CALL_UUID = "Channel-Call-UUID";
+    /**
+     * {@code "Call-Direction"}
+     */
+    public static final String CALL_DIRECTION = "Call-Direction";
+    /**
+     * {@code "Answer-State"}
+     */
+    public static final String ANSWER_STATE = "Answer-State";
+    /**
+     * {@code "Caller-Unique-ID"}
+     */
+    public static final String CALLER_UNIQUE_ID = "Caller-Unique-ID";
+    /**
+     * {@code "Caller-Caller-ID-Name"}
+     */
+    public static final String CALLER_CALLER_ID_NAME = "Caller-Caller-ID-Name";
+    /**
+     * {@code "Caller-Caller-ID-Number"}
+     */
+    public static final String CALLER_CALLER_ID_NUMBER = "Caller-Caller-ID-Number";
+    /**
+     * {@code "Caller-Destination-Number"}
+     */
+    public static final String CALLER_DESTINATION_NUMBER = "Caller-Destination-Number";
+    /**
+     * {@code "Caller-Context"}
+     */
+    public static final String CALLER_CONTEXT = "Caller-Context";
+    /**
+     * {@code "Other-Leg-Unique-ID"}
+     */
+    public static final String OTHER_LEG_UNIQUE_ID = "Other-Leg-Unique-ID";
+    /**
+     * {@code "Hangup-Cause"}
+     */
+    public static final String HANGUP_CAUSE = "Hangup-Cause";
+    /**
+     * {@code "Application"}
+     */
+    public static final String APPLICATION = "Application";
+    /**
+     * {@code "Application-Data"}
+     */
+    public static final String APPLICATION_DATA = "Application-Data";
+    /**
+     * {@code "Application-Response"}
+     */
+    public static final String APPLICATION_RESPONSE = "Application-Response";
+    /**
+     * {@code "Application-UUID"}
+     */
+    public static final String APPLICATION_UUID = "Application-UUID";
+
     private EslEventHeaderNames() {
         /* private class */
     }
+
+    /**
+     * @return all the header names declared by this class.
+     */
+    static String[] values() {
+        List<String> names = new ArrayList<>();
+        for (Field field : EslEventHeaderNames.class.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && field.getType() == String.class) {
+                try {
+                    names.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
 }
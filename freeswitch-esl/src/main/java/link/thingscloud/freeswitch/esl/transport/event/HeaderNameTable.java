@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import link.thingscloud.freeswitch.esl.transport.util.ByteStrings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Canonical event header name Strings, shared by all decoded events.
+ * <p>
+ * The table is seeded with the names of {@link EslEventHeaderNames} and learns the other names, such as
+ * {@code variable_sip_call_id}, as they are seen. It is bounded: a name is only added if one of the few
+ * slots it hashes to is free, otherwise a fresh String is returned. Only ASCII names are cached.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class HeaderNameTable {
+
+    private static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_PROBES = 8;
+    private static final int MAX_NAME_LENGTH = 128;
+
+    private static final AtomicReferenceArray<String> TABLE = new AtomicReferenceArray<>(CAPACITY);
+
+    static {
+        for (String name : EslEventHeaderNames.values()) {
+            resolve(name);
+        }
+    }
+
+    private HeaderNameTable() {
+    }
+
+    /**
+     * <p>resolve.</p>
+     *
+     * @param name a {@link java.lang.String} object.
+     * @return the canonical instance of the name, or the name itself.
+     */
+    public static String resolve(String name) {
+        int length = name.length();
+        if (length == 0 || length > MAX_NAME_LENGTH) {
+            return name;
+        }
+        int hash = name.hashCode();
+        int slot = spread(hash);
+        for (int i = 0; i < MAX_PROBES; i++, slot = (slot + 1) & MASK) {
+            String candidate = TABLE.get(slot);
+            if (candidate == null) {
+                if (!isAscii(name)) {
+                    return name;
+                }
+                if (TABLE.compareAndSet(slot, null, name)) {
+                    return name;
+                }
+                candidate = TABLE.get(slot);
+            }
+            if (candidate.hashCode() == hash && candidate.equals(name)) {
+                return candidate;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * <p>resolve.</p>
+     *
+     * @param buffer a {@link io.netty.buffer.ByteBuf} object.
+     * @param index  the index of the first name byte.
+     * @param length the number of name bytes.
+     * @return the canonical instance of the name, a new String if it can not be cached.
+     */
+    public static String resolve(ByteBuf buffer, int index, int length) {
+        if (length == 0 || length > MAX_NAME_LENGTH) {
+            return ByteStrings.decode(buffer, index, length);
+        }
+        // the same as String.hashCode() for ASCII names
+        int hash = 0;
+        for (int i = index; i < index + length; i++) {
+            byte b = buffer.getByte(i);
+            if (b < 0) {
+                return buffer.toString(index, length, StandardCharsets.UTF_8);
+            }
+            hash = 31 * hash + b;
+        }
+        int slot = spread(hash);
+        for (int i = 0; i < MAX_PROBES; i++, slot = (slot + 1) & MASK) {
+            String candidate = TABLE.get(slot);
+            if (candidate == null) {
+                String name = buffer.toString(index, length, StandardCharsets.US_ASCII);
+                if (TABLE.compareAndSet(slot, null, name)) {
+                    return name;
+                }
+                candidate = TABLE.get(slot);
+            }
+            if (candidate.hashCode() == hash && equals(candidate, buffer, index, length)) {
+                return candidate;
+            }
+        }
+        return buffer.toString(index, length, StandardCharsets.US_ASCII);
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & MASK;
+    }
+
+    private static boolean equals(String name, ByteBuf buffer, int index, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != buffer.getByte(index + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ByteProcessor;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Streaming parser for the {@code text/event-json} event body written by FreeSWITCH, a single flat object
+ * of string values, with the event body under the {@code "_body"} key.
+ * <p>
+ * The parser walks the frame bytes once. Header names are resolved through {@link HeaderNameTable}, and a
+ * value without escape sequences is decoded straight from the buffer. Values are not URL encoded in this
+ * format. Array values are joined the way the plain format writes them, {@code ARRAY::a|:b}, and any other
+ * nested value is kept as JSON text.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+class JsonEventParser {
+
+    /**
+     * key of the event body
+     */
+    static final String BODY = "_body";
+
+    private static final ByteProcessor FIND_QUOTE_OR_ESCAPE = value -> value != '"' && value != '\\';
+
+    private final ByteBuf buffer;
+    private final int end;
+    private int index;
+    private StringBuilder sb;
+
+    private JsonEventParser(ByteBuf buffer, int index, int end) {
+        this.buffer = buffer;
+        this.index = index;
+        this.end = end;
+    }
+
+    /**
+     * <p>parse.</p>
+     *
+     * @param buffer  a {@link io.netty.buffer.ByteBuf} object.
+     * @param index   the index of the first body byte.
+     * @param end     the index after the last body byte.
+     * @param headers the map the event headers are put into.
+     * @return the event body, null if there is none.
+     */
+    static String parse(ByteBuf buffer, int index, int end, Map<String, String> headers) {
+        return new JsonEventParser(buffer, index, end).parseObject(headers);
+    }
+
+    private String parseObject(Map<String, String> headers) {
+        String body = null;
+        expect('{');
+        if (peek() == '}') {
+            index++;
+            return null;
+        }
+        while (true) {
+            expect('"');
+            String name = readString(true);
+            expect(':');
+            String value = readValue();
+            if (BODY.equals(name)) {
+                body = value;
+            } else if (value != null) {
+                headers.put(name, value);
+            }
+            byte b = next();
+            if (b == '}') {
+                return body;
+            }
+            if (b != ',') {
+                throw malformed();
+            }
+        }
+    }
+
+    private String readValue() {
+        byte b = peek();
+        switch (b) {
+            case '"':
+                index++;
+                return readString(false);
+            case '[':
+                index++;
+                return readArray();
+            case '{':
+                int start = index;
+                skipNested();
+                return buffer.toString(start, index - start, StandardCharsets.UTF_8);
+            default:
+                return readLiteral();
+        }
+    }
+
+    private String readArray() {
+        StringBuilder array = new StringBuilder("ARRAY::");
+        if (peek() == ']') {
+            index++;
+            return array.toString();
+        }
+        while (true) {
+            String item = readValue();
+            array.append(item);
+            byte b = next();
+            if (b == ']') {
+                return array.toString();
+            }
+            if (b != ',') {
+                throw malformed();
+            }
+            array.append("|:");
+        }
+    }
+
+    /**
+     * number, true, false or null, null is returned as a null value
+     */
+    private String readLiteral() {
+        int start = index;
+        while (index < end) {
+            byte b = buffer.getByte(index);
+            if (b == ',' || b == '}' || b == ']' || b <= ' ') {
+                break;
+            }
+            index++;
+        }
+        if (index == start) {
+            throw malformed();
+        }
+        String literal = buffer.toString(start, index - start, StandardCharsets.US_ASCII);
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        while (index < end) {
+            byte b = buffer.getByte(index++);
+            if (b == '"') {
+                skipString();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return;
+            }
+        }
+        throw malformed();
+    }
+
+    private void skipString() {
+        while (index < end) {
+            byte b = buffer.getByte(index++);
+            if (b == '\\') {
+                index++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw malformed();
+    }
+
+    /**
+     * Reads the string following an opening quote.
+     */
+    private String readString(boolean name) {
+        int start = index;
+        int stop = buffer.forEachByte(start, end - start, FIND_QUOTE_OR_ESCAPE);
+        if (stop < 0) {
+            throw malformed();
+        }
+        if (buffer.getByte(stop) == '"') {
+            // no escape sequence, decode straight from the buffer
+            index = stop + 1;
+            return name ? HeaderNameTable.resolve(buffer, start, stop - start)
+                    : buffer.toString(start, stop - start, StandardCharsets.UTF_8);
+        }
+        if (sb == null) {
+            sb = new StringBuilder(64);
+        }
+        sb.setLength(0);
+        while (true) {
+            // a run of bytes never splits a UTF-8 sequence, the delimiters are ASCII
+            sb.append(buffer.toString(start, stop - start, StandardCharsets.UTF_8));
+            if (buffer.getByte(stop) == '"') {
+                index = stop + 1;
+                String value = sb.toString();
+                return name ? HeaderNameTable.resolve(value) : value;
+            }
+            index = stop + 1;
+            appendEscape(next());
+            start = index;
+            stop = buffer.forEachByte(start, end - start, FIND_QUOTE_OR_ESCAPE);
+            if (stop < 0) {
+                throw malformed();
+            }
+        }
+    }
+
+    private void appendEscape(byte b) {
+        switch (b) {
+            case 'n':
+                sb.append('\n');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'u':
+                if (index + 4 > end) {
+                    throw malformed();
+                }
+                int ch = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(buffer.getByte(index++), 16);
+                    if (digit < 0) {
+                        throw malformed();
+                    }
+                    ch = (ch << 4) | digit;
+                }
+                // surrogate pairs are two escapes, appended one after the other
+                sb.append((char) ch);
+                break;
+            case '"':
+            case '\\':
+            case '/':
+                sb.append((char) b);
+                break;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void expect(char ch) {
+        if (next() != ch) {
+            throw malformed();
+        }
+    }
+
+    /**
+     * @return the next byte which is not white space
+     */
+    private byte next() {
+        byte b = peek();
+        index++;
+        return b;
+    }
+
+    private byte peek() {
+        while (index < end) {
+            byte b = buffer.getByte(index);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return b;
+            }
+            index++;
+        }
+        throw malformed();
+    }
+
+    private EslDecoderException malformed() {
+        return new EslDecoderException("Malformed JSON event at byte " + index);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+import link.thingscloud.freeswitch.esl.transport.message.EslHeaders;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import link.thingscloud.freeswitch.esl.transport.util.ByteScanner;
+import link.thingscloud.freeswitch.esl.transport.util.ByteStrings;
+import link.thingscloud.freeswitch.esl.transport.util.HeaderParser;
+import link.thingscloud.freeswitch.esl.transport.util.UrlDecoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@code text/event-plain} {@link EslEvent} that parses event headers only when they are requested.
+ * <p>
+ * The event keeps the raw header region of the retained message body, see
+ * {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#retainEventBody(boolean)}.
+ * Header lines are scanned only as far as needed to find the requested header, the position of every
+ * scanned line is remembered, and only the requested values are URL decoded. {@link #getEventHeaders()}
+ * materializes the full map on first call.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class LazyEslEvent extends EslEvent {
+
+    private static final byte LF = 10;
+    private static final byte COLON = ':';
+
+    private static final Recycler<LazyEslEvent> RECYCLER = new Recycler<LazyEslEvent>() {
+        @Override
+        protected LazyEslEvent newObject(Handle<LazyEslEvent> handle) {
+            return new LazyEslEvent(handle);
+        }
+    };
+
+    private ByteBuf rawBody;
+    private int end;
+    /**
+     * next index to scan, -1 once all event header lines have been scanned
+     */
+    private int scanIndex;
+    /**
+     * start of the event body lines following the Content-Length event header, -1 if none
+     */
+    private int bodyIndex = -1;
+    private int lines = 0;
+    private int[] nameStarts = new int[32];
+    private int[] nameEnds = new int[32];
+    private int[] lineEnds = new int[32];
+    private final Map<String, String> decodedHeaders = new HashMap<>(8);
+    private String eventName;
+    private Map<String, String> eventHeaders;
+    private List<String> eventBody;
+
+    /**
+     * <p>Constructor for LazyEslEvent.</p>
+     *
+     * @param rawMessage a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object with a raw body.
+     */
+    public LazyEslEvent(EslMessage rawMessage) {
+        super(rawMessage);
+        initLazy(rawMessage);
+    }
+
+    private LazyEslEvent(Recycler.Handle<LazyEslEvent> handle) {
+        super(handle);
+    }
+
+    /**
+     * A pooled lazy event, see {@link EslEvent#newInstance(EslMessage)}.
+     *
+     * @param rawMessage a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object with a raw body.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.event.LazyEslEvent} object.
+     */
+    public static LazyEslEvent newInstance(EslMessage rawMessage) {
+        LazyEslEvent event = RECYCLER.get();
+        event.init(rawMessage, false);
+        event.initLazy(rawMessage);
+        return event;
+    }
+
+    private void initLazy(EslMessage rawMessage) {
+        if (!rawMessage.hasRawBody() || !EslHeaders.Value.TEXT_EVENT_PLAIN.equals(rawMessage.getContentType())) {
+            throw new IllegalStateException("Unexpected lazy EVENT message: " + rawMessage);
+        }
+        this.rawBody = rawMessage.getRawBody();
+        this.scanIndex = rawBody.readerIndex();
+        this.end = rawBody.writerIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    synchronized void reset() {
+        super.reset();
+        spare(eventHeaders, eventBody);
+        rawBody = null;
+        end = 0;
+        scanIndex = 0;
+        bodyIndex = -1;
+        lines = 0;
+        decodedHeaders.clear();
+        eventName = null;
+        eventHeaders = null;
+        eventBody = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Map<String, String> getEventHeaders() {
+        if (eventHeaders == null) {
+            while (scanLine()) {
+                // scan the remaining event header lines
+            }
+            Map<String, String> headers = newHeaders(lines);
+            for (int i = 0; i < lines; i++) {
+                String name = HeaderNameTable.resolve(rawBody, nameStarts[i], nameEnds[i] - nameStarts[i]);
+                String value = decodedHeaders.get(name);
+                headers.put(name, value != null ? value : value(i));
+            }
+            // the slots filled so far hold the same values as the map
+            trackWrites(headers);
+            eventHeaders = headers;
+        }
+        return eventHeaders;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String getEventHeader(String headerName) {
+        if (eventHeaders != null) {
+            return eventHeaders.get(headerName);
+        }
+        if (decodedHeaders.containsKey(headerName)) {
+            return decodedHeaders.get(headerName);
+        }
+        String value = findHeader(headerName);
+        decodedHeaders.put(headerName, value);
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    synchronized Map<String, String> decodedHeaderMap() {
+        return eventHeaders;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A slot is filled on first request, scanning only as far as its header line.
+     */
+    @Override
+    synchronized String hotHeader(int slot) {
+        dropStaleHotHeaders();
+        int bit = 1 << slot;
+        if ((hotHeadersFilled & bit) == 0) {
+            hotHeaders[slot] = getEventHeader(HOT_HEADER_NAMES[slot]);
+            hotHeadersFilled |= bit;
+        }
+        return hotHeaders[slot];
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * FreeSWITCH always writes "Event-Name" first, so this only looks at the first header line.
+     */
+    @Override
+    public synchronized String getEventName() {
+        if (eventHeaders != null) {
+            // the map may have been changed
+            return eventHeaders.get(EslEventHeaderNames.EVENT_NAME);
+        }
+        if (eventName == null) {
+            if (lines == 0) {
+                scanLine();
+            }
+            if (lines > 0 && nameEquals(0, EslEventHeaderNames.EVENT_NAME)) {
+                eventName = value(0);
+            } else {
+                eventName = getEventHeader(EslEventHeaderNames.EVENT_NAME);
+            }
+        }
+        return eventName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<String> getEventBodyLines() {
+        if (eventBody == null) {
+            while (scanLine()) {
+                // find the end of the event header lines
+            }
+            List<String> body = newBody();
+            int index = bodyIndex;
+            while (index >= 0 && index < end) {
+                int lineFeed = ByteScanner.indexOf(rawBody, index, end, LF);
+                int lineEnd = lineFeed < 0 ? end : lineFeed;
+                // ignore blank line (always is one following the content-length
+                if (lineEnd > index) {
+                    body.add(ByteStrings.decode(rawBody, index, lineEnd - index));
+                }
+                index = lineEnd + 1;
+            }
+            eventBody = body;
+        }
+        return eventBody;
+    }
+
+    private String findHeader(String headerName) {
+        for (int i = 0; i < lines; i++) {
+            if (nameEquals(i, headerName)) {
+                return value(i);
+            }
+        }
+        while (scanLine()) {
+            if (nameEquals(lines - 1, headerName)) {
+                return value(lines - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record the position of the next event header line.
+     *
+     * @return false if there are no more event header lines
+     */
+    private boolean scanLine() {
+        while (scanIndex >= 0 && scanIndex < end) {
+            int lineFeed = ByteScanner.indexOf(rawBody, scanIndex, end, LF);
+            int lineStart = scanIndex;
+            int lineEnd = lineFeed < 0 ? end : lineFeed;
+            scanIndex = lineEnd + 1;
+            int nameStart = skipWhitespace(lineStart, lineEnd);
+            if (nameStart == lineEnd) {
+                // blank line terminating the event headers
+                continue;
+            }
+            int nameEnd = nameStart;
+            while (nameEnd < lineEnd) {
+                byte b = rawBody.getByte(nameEnd);
+                if (b == COLON || HeaderParser.isWhitespace(b)) {
+                    break;
+                }
+                nameEnd++;
+            }
+            if (lines == lineEnds.length) {
+                nameStarts = Arrays.copyOf(nameStarts, lines << 1);
+                nameEnds = Arrays.copyOf(nameEnds, lines << 1);
+                lineEnds = Arrays.copyOf(lineEnds, lines << 1);
+            }
+            nameStarts[lines] = nameStart;
+            nameEnds[lines] = nameEnd;
+            lineEnds[lines] = lineEnd;
+            lines++;
+            if (nameEquals(lines - 1, EslEventHeaderNames.CONTENT_LENGTH)) {
+                // the remaining lines will be considered body lines
+                bodyIndex = Math.min(scanIndex, end);
+                scanIndex = -1;
+            }
+            return true;
+        }
+        scanIndex = -1;
+        return false;
+    }
+
+    private boolean nameEquals(int line, String headerName) {
+        int index = nameStarts[line];
+        int length = nameEnds[line] - index;
+        if (length != headerName.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (rawBody.getByte(index + i) != headerName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String value(int line) {
+        int index = nameEnds[line];
+        int lineEnd = lineEnds[line];
+        while (index < lineEnd && rawBody.getByte(index) != COLON) {
+            index++;
+        }
+        int valueStart = skipWhitespace(Math.min(index + 1, lineEnd), lineEnd);
+        int valueEnd = lineEnd;
+        while (valueEnd > valueStart && HeaderParser.isWhitespace(rawBody.getByte(valueEnd - 1))) {
+            valueEnd--;
+        }
+        // decoded straight from the frame bytes
+        return UrlDecoder.decode(rawBody, valueStart, valueEnd - valueStart);
+    }
+
+    private int skipWhitespace(int index, int lineEnd) {
+        while (index < lineEnd && HeaderParser.isWhitespace(rawBody.getByte(index))) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+import link.thingscloud.freeswitch.esl.transport.util.UrlDecoder;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Map;
+
+/**
+ * Streaming parser for the {@code text/event-xml} event body written by FreeSWITCH.
+ * <pre>
+ *   &lt;event&gt;
+ *     &lt;headers&gt;
+ *       &lt;Event-Name&gt;CHANNEL_CREATE&lt;/Event-Name&gt;
+ *       ...
+ *     &lt;/headers&gt;
+ *     &lt;Content-Length&gt;2&lt;/Content-Length&gt;
+ *     &lt;body&gt;OK&lt;/body&gt;
+ *   &lt;/event&gt;
+ * </pre>
+ * The body bytes are pulled through a StAX reader, no DOM is built. Header values are URL decoded as in the
+ * plain format, repeated header elements are joined as {@code ARRAY::a|:b}, and the value of a header element
+ * with nested elements is the text of all of them. DTDs and external entities are not supported.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+class XmlEventParser {
+
+    private static final String HEADERS = "headers";
+    private static final String BODY = "body";
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private XmlEventParser() {
+    }
+
+    /**
+     * <p>parse.</p>
+     *
+     * @param buffer  a {@link io.netty.buffer.ByteBuf} object, its readable bytes are the event body.
+     * @param headers the map the event headers are put into.
+     * @return the event body, null if there is none.
+     */
+    static String parse(ByteBuf buffer, Map<String, String> headers) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(new ByteBufInputStream(buffer.duplicate()));
+            String body = null;
+            // 1 inside <event>, 2 inside <headers>
+            int depth = 0;
+            while (reader.hasNext()) {
+                int next = reader.next();
+                if (next == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (depth == 0) {
+                        depth = 1;
+                    } else if (depth == 1 && HEADERS.equals(name)) {
+                        depth = 2;
+                    } else if (depth == 1 && BODY.equals(name)) {
+                        body = readText(reader);
+                    } else {
+                        addHeader(headers, HeaderNameTable.resolve(name), UrlDecoder.decode(readText(reader)));
+                    }
+                } else if (next == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return body;
+        } catch (XMLStreamException e) {
+            throw new EslDecoderException("Malformed XML event : " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to release
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the text of the current element and its nested elements, up to its end tag.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sb = null;
+        String text = "";
+        int depth = 1;
+        while (depth > 0) {
+            int next = reader.next();
+            if (next == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (next == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (next == XMLStreamConstants.CHARACTERS || next == XMLStreamConstants.CDATA) {
+                if (text.isEmpty()) {
+                    text = reader.getText();
+                } else {
+                    if (sb == null) {
+                        sb = new StringBuilder(text);
+                    }
+                    sb.append(reader.getText());
+                }
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    private static void addHeader(Map<String, String> headers, String name, String value) {
+        String previous = headers.get(name);
+        if (previous == null) {
+            headers.put(name, value);
+        } else if (previous.startsWith("ARRAY::")) {
+            headers.put(name, previous + "|:" + value);
+        } else {
+            headers.put(name, "ARRAY::" + previous + "|:" + value);
+        }
+    }
+}
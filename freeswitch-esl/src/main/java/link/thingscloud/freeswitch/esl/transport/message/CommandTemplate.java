@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command shape sent over and over, such as {@code uuid_setvar %s %s %s}, with its constant parts encoded
+ * to bytes once. Only the arguments are encoded when a command made from it is written.
+ * <p>
+ * Each {@code %s} of the pattern is replaced by an argument, {@code %%} stands for a {@code %}.
+ * Templates are immutable and can be shared by all threads.
+ * <pre>
+ *   static final CommandTemplate UUID_SETVAR = CommandTemplate.of("uuid_setvar %s %s %s");
+ *
+ *   inboundClient.sendSyncApiCommand(addr, UUID_SETVAR, uuid, "campaign_id", "42");
+ * </pre>
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ * @see link.thingscloud.freeswitch.esl.transport.SendMsg#toTemplate()
+ */
+public final class CommandTemplate {
+
+    private final String pattern;
+    /**
+     * the constant bytes before each argument, and after the last one
+     */
+    private final byte[][] segments;
+    private final int constantLength;
+
+    private CommandTemplate(String pattern, byte[][] segments) {
+        this.pattern = pattern;
+        this.segments = segments;
+        int length = 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        this.constantLength = length;
+    }
+
+    /**
+     * <p>of.</p>
+     *
+     * @param pattern the command, with a {@code %s} for each argument.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} object.
+     * @throws java.lang.IllegalArgumentException if the pattern has a {@code %} other than {@code %s} and {@code %%}.
+     */
+    public static CommandTemplate of(String pattern) {
+        List<byte[]> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (ch != '%') {
+                segment.append(ch);
+                continue;
+            }
+            char next = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+            if (next == 's') {
+                segments.add(segment.toString().getBytes(StandardCharsets.UTF_8));
+                segment.setLength(0);
+            } else if (next == '%') {
+                segment.append('%');
+            } else {
+                throw new IllegalArgumentException("Unexpected '%' at " + i + " in [" + pattern + ']');
+            }
+            i++;
+        }
+        segments.add(segment.toString().getBytes(StandardCharsets.UTF_8));
+        return new CommandTemplate(pattern, segments.toArray(new byte[0][]));
+    }
+
+    /**
+     * <p>argCount.</p>
+     *
+     * @return the number of {@code %s} in the pattern.
+     */
+    public int argCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * The command made of this template and the arguments, without prefix.
+     *
+     * @param args one argument for each {@code %s}
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     * @throws java.lang.IllegalArgumentException if the number of arguments does not match or an argument is null.
+     */
+    public EslCommand with(String... args) {
+        return EslCommand.of(null, this, args);
+    }
+
+    void checkArgs(String[] args) {
+        if (args.length != argCount()) {
+            throw new IllegalArgumentException("Expected " + argCount() + " arguments for [" + pattern + "], got " + args.length);
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) {
+                // rejected here rather than by the encoder on the I/O thread
+                throw new IllegalArgumentException("Argument " + i + " for [" + pattern + "] is null");
+            }
+        }
+    }
+
+    int length(String[] args) {
+        int length = constantLength;
+        for (String arg : args) {
+            length += arg.length();
+        }
+        return length;
+    }
+
+    void encode(String[] args, ByteBuf out) {
+        out.writeBytes(segments[0]);
+        for (int i = 0; i < args.length; i++) {
+            ByteBufUtil.writeUtf8(out, args[i]);
+            out.writeBytes(segments[i + 1]);
+        }
+    }
+
+    String format(String[] args) {
+        StringBuilder sb = new StringBuilder(length(args));
+        sb.append(new String(segments[0], StandardCharsets.UTF_8));
+        for (int i = 0; i < args.length; i++) {
+            sb.append(args[i]).append(new String(segments[i + 1], StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
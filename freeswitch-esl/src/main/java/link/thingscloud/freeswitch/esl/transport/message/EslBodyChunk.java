@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A part of the body of a chunked {@code api/response}, see {@link EslMessage#isChunked()}.
+ * <p>
+ * Every chunk but the last ends on a line feed, so the lines of all the chunks are the body lines of the
+ * response. A line longer than the chunk size makes its chunk longer, it is never split.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class EslBodyChunk {
+
+    private final List<String> lines;
+    private final boolean last;
+
+    EslBodyChunk(ByteBuf buffer, int index, int length, boolean last) {
+        List<String> lines = new ArrayList<>();
+        EslMessage.splitLines(buffer, index, length, lines);
+        this.lines = Collections.unmodifiableList(lines);
+        this.last = last;
+    }
+
+    /**
+     * <p>getLines.</p>
+     *
+     * @return the body lines in this chunk.
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * <p>isLast.</p>
+     *
+     * @return true if and only if this chunk ends the body.
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * Adds the lines of this chunk to the body lines of the chunked message.
+     *
+     * @param message the {@link EslMessage} this chunk belongs to.
+     */
+    public void appendTo(EslMessage message) {
+        for (String line : lines) {
+            message.addBodyLine(line);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "EslBodyChunk: lines=" + lines.size() + ", last=" + last;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import java.util.List;
+
+/**
+ * A command to send to FreeSWITCH, written by the {@link EslCommandEncoder} straight into the outbound buffer.
+ * <p>
+ * A single line command is kept as its parts, such as {@code "api"}, the command and its argument, and a
+ * multi-line command such as {@code sendmsg} or {@code sendevent} as its lines, so no String of the whole
+ * command is built before it is encoded. A command made of a {@link CommandTemplate} is kept as the template and
+ * its arguments.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public final class EslCommand {
+
+    private final String prefix;
+    private final String command;
+    private final String arg;
+    private final List<String> lines;
+    private final CommandTemplate template;
+    private final String[] args;
+    private final String jobUuid;
+
+    private EslCommand(String prefix, String command, String arg, List<String> lines) {
+        this(prefix, command, arg, lines, null, null, null);
+    }
+
+    private EslCommand(String prefix, String command, String arg, List<String> lines, CommandTemplate template, String[] args,
+                       String jobUuid) {
+        this.prefix = prefix;
+        this.command = command;
+        this.arg = arg;
+        this.lines = lines;
+        this.template = template;
+        this.args = args;
+        this.jobUuid = jobUuid;
+    }
+
+    /**
+     * <p>of.</p>
+     *
+     * @param line the command line, without line terminator.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand of(String line) {
+        return new EslCommand(null, line, null, null);
+    }
+
+    /**
+     * The command {@code "prefix command arg"}, the prefix and the command are left out if the command is empty,
+     * the argument is left out if it is empty.
+     *
+     * @param prefix  the command prefix, such as {@code "api"}.
+     * @param command a {@link java.lang.String} object.
+     * @param arg     a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand of(String prefix, String command, String arg) {
+        return new EslCommand(prefix, command, arg, null);
+    }
+
+    /**
+     * <p>of.</p>
+     *
+     * @param lines the command lines, such as {@link link.thingscloud.freeswitch.esl.transport.SendMsg#getMsgLines()}.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand of(List<String> lines) {
+        return new EslCommand(null, null, null, lines);
+    }
+
+    /**
+     * <p>api.</p>
+     *
+     * @param command a {@link java.lang.String} object.
+     * @param arg     a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand api(String command, String arg) {
+        return of("api", command, arg);
+    }
+
+    /**
+     * <p>bgapi.</p>
+     *
+     * @param command a {@link java.lang.String} object.
+     * @param arg     a {@link java.lang.String} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand bgapi(String command, String arg) {
+        return of("bgapi", command, arg);
+    }
+
+    /**
+     * The command {@code "bgapi command arg"} with a Job-UUID chosen by the client, so the job can be
+     * looked for before the reply to the command arrives. The Job-UUID is sent as a header line after the command,
+     * the argument is left out if it is empty.
+     *
+     * @param command a {@link java.lang.String} object, not empty.
+     * @param arg     a {@link java.lang.String} object.
+     * @param jobUuid the Job-UUID of the BACKGROUND_JOB event, not empty.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     * @throws java.lang.IllegalArgumentException if the command or the Job-UUID is null or empty.
+     */
+    public static EslCommand bgapi(String command, String arg, String jobUuid) {
+        // rejected here rather than by the encoder on the I/O thread
+        if (!hasText(command)) {
+            throw new IllegalArgumentException("bgapi command is empty, Job-UUID : " + jobUuid);
+        }
+        if (!hasText(jobUuid)) {
+            throw new IllegalArgumentException("Job-UUID is empty for bgapi " + command);
+        }
+        return new EslCommand("bgapi", command, arg, null, null, null, jobUuid);
+    }
+
+    /**
+     * <p>api.</p>
+     *
+     * @param template a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} object.
+     * @param args     one argument for each {@code %s} of the template.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand api(CommandTemplate template, String... args) {
+        return of("api", template, args);
+    }
+
+    /**
+     * <p>bgapi.</p>
+     *
+     * @param template a {@link link.thingscloud.freeswitch.esl.transport.message.CommandTemplate} object.
+     * @param args     one argument for each {@code %s} of the template.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     */
+    public static EslCommand bgapi(CommandTemplate template, String... args) {
+        return of("bgapi", template, args);
+    }
+
+    static EslCommand of(String prefix, CommandTemplate template, String[] args) {
+        template.checkArgs(args);
+        return new EslCommand(prefix, null, null, null, template, args, null);
+    }
+
+    String prefix() {
+        if (template != null) {
+            return prefix;
+        }
+        return hasText(command) ? prefix : null;
+    }
+
+    String command() {
+        return hasText(command) ? command : null;
+    }
+
+    String arg() {
+        return hasText(arg) ? arg : null;
+    }
+
+    List<String> lines() {
+        return lines;
+    }
+
+    CommandTemplate template() {
+        return template;
+    }
+
+    String[] args() {
+        return args;
+    }
+
+    String jobUuid() {
+        return jobUuid;
+    }
+
+    /**
+     * @return the number of chars of the encoded command, its number of bytes if it is ASCII.
+     */
+    int length() {
+        int length = 1;
+        if (lines != null) {
+            for (String line : lines) {
+                length += line.length() + 1;
+            }
+            return length;
+        }
+        if (template != null) {
+            return (prefix != null ? prefix.length() + 1 : 0) + template.length(args) + 2;
+        }
+        String prefix = prefix();
+        if (prefix != null) {
+            length += prefix.length() + 1;
+        }
+        String command = command();
+        if (command != null) {
+            length += command.length();
+        }
+        String arg = arg();
+        if (arg != null) {
+            length += arg.length() + 1;
+        }
+        if (jobUuid != null) {
+            length += EslHeaders.Name.JOB_UUID.literal().length() + 2 + jobUuid.length() + 1;
+        }
+        return length + 1;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * The command without its line terminators, only built for logging.
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    @Override
+    public String toString() {
+        if (lines != null) {
+            return String.join("\n", lines);
+        }
+        if (template != null) {
+            return prefix != null ? prefix + ' ' + template.format(args) : template.format(args);
+        }
+        StringBuilder sb = new StringBuilder();
+        if (prefix() != null) {
+            sb.append(prefix()).append(' ');
+        }
+        if (command() != null) {
+            sb.append(command());
+        }
+        if (arg() != null) {
+            sb.append(' ').append(arg());
+        }
+        if (jobUuid != null) {
+            sb.append('\n').append(EslHeaders.Name.JOB_UUID.literal()).append(": ").append(jobUuid);
+        }
+        return sb.toString();
+    }
+}
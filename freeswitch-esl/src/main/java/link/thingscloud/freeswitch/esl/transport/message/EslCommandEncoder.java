@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.util.List;
+
+/**
+ * Encodes {@link EslCommand}s straight into buffers of the channel allocator, pooled direct buffers by default.
+ * <p>
+ * Each part of a command is written as UTF-8 in place, followed by the line feeds ending the command.
+ * The constant bytes of a {@link CommandTemplate} are copied as they are, only its arguments are encoded.
+ * Any other {@link CharSequence} is written as is, as a {@code StringEncoder} would, but always as UTF-8.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+@ChannelHandler.Sharable
+public class EslCommandEncoder extends MessageToByteEncoder<Object> {
+
+    private static final byte LF = 10;
+    private static final byte SPACE = ' ';
+    private static final byte COLON = ':';
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof EslCommand || msg instanceof CharSequence;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Object msg, boolean preferDirect) {
+        // exact for ASCII commands, the buffer grows for the others
+        int length = msg instanceof EslCommand ? ((EslCommand) msg).length() : ((CharSequence) msg).length();
+        return preferDirect ? ctx.alloc().ioBuffer(length) : ctx.alloc().heapBuffer(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+        if (msg instanceof EslCommand) {
+            encode((EslCommand) msg, out);
+        } else {
+            ByteBufUtil.writeUtf8(out, (CharSequence) msg);
+        }
+    }
+
+    /**
+     * Writes the command and the line feeds ending it.
+     *
+     * @param command a {@link link.thingscloud.freeswitch.esl.transport.message.EslCommand} object.
+     * @param out     a {@link io.netty.buffer.ByteBuf} object.
+     */
+    public static void encode(EslCommand command, ByteBuf out) {
+        List<String> lines = command.lines();
+        if (lines != null) {
+            for (String line : lines) {
+                ByteBufUtil.writeUtf8(out, line);
+                out.writeByte(LF);
+            }
+            out.writeByte(LF);
+            return;
+        }
+        if (command.prefix() != null) {
+            ByteBufUtil.writeUtf8(out, command.prefix());
+            out.writeByte(SPACE);
+        }
+        CommandTemplate template = command.template();
+        if (template != null) {
+            template.encode(command.args(), out);
+            out.writeByte(LF);
+            out.writeByte(LF);
+            return;
+        }
+        if (command.command() != null) {
+            ByteBufUtil.writeUtf8(out, command.command());
+        }
+        if (command.arg() != null) {
+            out.writeByte(SPACE);
+            ByteBufUtil.writeUtf8(out, command.arg());
+        }
+        out.writeByte(LF);
+        if (command.jobUuid() != null) {
+            ByteBufUtil.writeAscii(out, EslHeaders.Name.JOB_UUID.literal());
+            out.writeByte(COLON);
+            out.writeByte(SPACE);
+            ByteBufUtil.writeUtf8(out, command.jobUuid());
+            out.writeByte(LF);
+        }
+        out.writeByte(LF);
+    }
+}
@@ -18,12 +18,14 @@
 package link.thingscloud.freeswitch.esl.transport.message;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ReplayingDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.TooLongFrameException;
-import io.netty.util.ReferenceCountUtil;
 import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
-import link.thingscloud.freeswitch.esl.transport.util.ByteBuilder;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventFilter;
+import link.thingscloud.freeswitch.esl.transport.util.ByteScanner;
+import link.thingscloud.freeswitch.esl.transport.util.ByteStrings;
 import link.thingscloud.freeswitch.esl.transport.util.HeaderParser;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,19 +33,36 @@ import java.util.List;
 
 /**
  * <p>EslFrameDecoder class.</p>
+ * <p>
+ * Scans the cumulated buffer for line feeds instead of reading byte by byte, and remembers how far
+ * the current header line has been scanned so a partial read is never parsed twice.
  *
  * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
  * @version $Id: $Id
  */
 @Slf4j
-public class EslFrameDecoder extends ReplayingDecoder<EslFrameDecoder.State> {
+public class EslFrameDecoder extends ByteToMessageDecoder {
     /**
      * Line feed character
      */
     private static final byte LF = 10;
     private final int maxHeaderSize;
+    private State state = State.READ_HEADER;
     private EslMessage currentMessage;
+    /**
+     * bytes of the current header line, or of the current body chunk, already scanned without finding a line feed
+     */
+    private int scannedBytes;
     private boolean treatUnknownHeadersAsBody = false;
+    private boolean retainEventBody = false;
+    private EslEventFilter eventFilter = null;
+    private boolean pooled = false;
+    private int maxBodySize = Integer.MAX_VALUE;
+    private int apiResponseChunkSize = 0;
+    /**
+     * body bytes left to read in the READ_BODY_CHUNKS and DISCARD_BODY states
+     */
+    private int remainingBytes;
 
     /**
      * <p>Constructor for EslFrameDecoder.</p>
@@ -51,7 +70,6 @@ public class EslFrameDecoder extends ReplayingDecoder<EslFrameDecoder.State> {
      * @param maxHeaderSize a int.
      */
     public EslFrameDecoder(int maxHeaderSize) {
-        super(State.READ_HEADER);
         if (maxHeaderSize <= 0) {
             throw new IllegalArgumentException(
                     "maxHeaderSize must be a positive integer: " +
@@ -71,127 +89,296 @@ public class EslFrameDecoder extends ReplayingDecoder<EslFrameDecoder.State> {
         this.treatUnknownHeadersAsBody = treatUnknownHeadersAsBody;
     }
 
+    /**
+     * Keep the body of {@code text/event-*} messages as a retained slice of the receive buffer instead of
+     * splitting it into lines up front, see {@link EslMessage#getRawBody()}.
+     *
+     * @param retainEventBody a boolean.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder} object.
+     */
+    public EslFrameDecoder retainEventBody(boolean retainEventBody) {
+        this.retainEventBody = retainEventBody;
+        return this;
+    }
+
+    /**
+     * Drop the {@code text/event-plain} messages rejected by the filter, without decoding their body.
+     *
+     * @param eventFilter a {@link link.thingscloud.freeswitch.esl.transport.event.EslEventFilter} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder} object.
+     */
+    public EslFrameDecoder eventFilter(EslEventFilter eventFilter) {
+        this.eventFilter = eventFilter;
+        return this;
+    }
+
+    /**
+     * Take the event messages from a pool, see {@link EslMessage#newInstance()}. Other messages, such as the
+     * replies to commands, are not pooled: they are handed to the callers of the commands, who do not release them.
+     *
+     * @param pooled a boolean.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder} object.
+     */
+    public EslFrameDecoder pooled(boolean pooled) {
+        this.pooled = pooled;
+        return this;
+    }
+
+    /**
+     * Bodies longer than this are discarded as they arrive, the message is passed on without its body, see
+     * {@link EslMessage#isTruncated()}, and a {@link io.netty.handler.codec.TooLongFrameException} is fired. Does not apply to chunked
+     * {@code api/response} bodies, which are never buffered in full.
+     *
+     * @param maxBodySize a int, unlimited by default.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder} object.
+     */
+    public EslFrameDecoder maxBodySize(int maxBodySize) {
+        if (maxBodySize <= 0) {
+            throw new IllegalArgumentException("maxBodySize must be a positive integer: " + maxBodySize);
+        }
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    /**
+     * Pass on {@code api/response} bodies longer than this while they are still arriving: first the message
+     * with the headers, see {@link EslMessage#isChunked()}, then {@link EslBodyChunk}s of about this size,
+     * so the decoder never buffers a whole multi-megabyte response. A chunk always ends on a line feed, a
+     * line longer than this is buffered until it is complete.
+     *
+     * @param apiResponseChunkSize a int, 0 to always pass on whole messages, the default.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder} object.
+     */
+    public EslFrameDecoder apiResponseChunkSize(int apiResponseChunkSize) {
+        if (apiResponseChunkSize < 0) {
+            throw new IllegalArgumentException("apiResponseChunkSize must not be negative: " + apiResponseChunkSize);
+        }
+        this.apiResponseChunkSize = apiResponseChunkSize;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) {
-        log.trace("decode() : state [{}]", state());
-        switch (state()) {
+        log.trace("decode() : state [{}]", state);
+        switch (state) {
             case READ_HEADER:
                 if (currentMessage == null) {
-                    currentMessage = new EslMessage();
+                    currentMessage = pooled ? EslMessage.newInstance() : new EslMessage();
                 }
                 /*
                  *  read '\n' terminated lines until reach a single '\n'
                  */
-                boolean reachedDoubleLF = false;
-                while (!reachedDoubleLF) {
-                    // this will read or fail
-                    String headerLine = readToLineFeedOrFail(buffer, maxHeaderSize);
-                    log.trace("read header line [{}]", headerLine);
-                    if (!headerLine.isEmpty()) {
-                        // split the header line
-                        String[] headerParts = HeaderParser.splitHeader(headerLine);
-                        EslHeaders.Name headerName = EslHeaders.Name.fromLiteral(headerParts[0]);
-                        if (headerName == null) {
-                            if (treatUnknownHeadersAsBody) {
-                                // cache this 'header' as a body line <-- useful for Outbound client mode
-                                currentMessage.addBodyLine(headerLine);
-                            } else {
-                                throw new IllegalStateException("Unhandled ESL header [" + headerParts[0] + ']');
-                            }
-                        }
-                        currentMessage.addHeader(headerName, headerParts[1]);
-                    } else {
-                        reachedDoubleLF = true;
-                    }
-                    // do not read in this line again
-                    checkpoint();
+                if (!readHeaders(buffer)) {
+                    // wait for more bytes
+                    return;
+                }
+                if (pooled && !isEvent(currentMessage.getContentType())) {
+                    // only events go back to the pool, replies are never released by their callers
+                    currentMessage = currentMessage.unpooled();
                 }
                 // have read all headers - check for content-length
-                if (currentMessage.hasContentLength()) {
-                    checkpoint(State.READ_BODY);
-                    log.trace("have content-length, decoding body ..");
-                    //  force the next section
+                if (!currentMessage.hasContentLength()) {
+                    // end of message, send it upstream
+                    out.add(nextMessage());
                     return;
-                } else {
-                    // end of message
-                    checkpoint(State.READ_HEADER);
-                    // send message upstream
-                    EslMessage decodedMessage = currentMessage;
+                }
+                if (isChunked(currentMessage)) {
+                    // send the headers upstream now, the body follows as it arrives
+                    remainingBytes = currentMessage.getContentLength();
+                    currentMessage.setChunked();
+                    out.add(currentMessage);
                     currentMessage = null;
-
-                    out.add(decodedMessage);
+                    state = State.READ_BODY_CHUNKS;
                     return;
                 }
-            case READ_BODY:
-                /*
-                 *   read the content-length specified
-                 */
-                int contentLength = currentMessage.getContentLength();
-                ByteBuf bodyBytes = buffer.readBytes(contentLength);
-                log.trace("read [{}] body bytes", bodyBytes.writerIndex());
-                // most bodies are line based, so split on LF
-                while (bodyBytes.isReadable()) {
-                    String bodyLine = readLine(bodyBytes, contentLength);
-                    log.trace("read body line [{}]", bodyLine);
-                    currentMessage.addBodyLine(bodyLine);
+                if (currentMessage.getContentLength() > maxBodySize) {
+                    remainingBytes = currentMessage.getContentLength();
+                    state = State.DISCARD_BODY;
+                    ctx.fireExceptionCaught(new TooLongFrameException(
+                            "ESL body of " + remainingBytes + " bytes is longer than " + maxBodySize + " bytes."));
+                    return;
                 }
-                // release bodyBytes
-                if (bodyBytes.refCnt() > 0) {
-                    ReferenceCountUtil.safeRelease(bodyBytes);
+                state = State.READ_BODY;
+                log.trace("have content-length, decoding body ..");
+                // the body may already be in the buffer
+                decodeBody(buffer, out);
+                return;
+            case READ_BODY:
+                decodeBody(buffer, out);
+                return;
+            case READ_BODY_CHUNKS:
+                readBodyChunk(buffer, out);
+                return;
+            case DISCARD_BODY:
+                int discard = Math.min(buffer.readableBytes(), remainingBytes);
+                buffer.skipBytes(discard);
+                remainingBytes -= discard;
+                if (remainingBytes == 0) {
+                    EslMessage message = nextMessage();
+                    if (isEvent(message.getContentType())) {
+                        message.release();
+                    } else {
+                        // without its body, so a caller waiting for the reply is not left hanging
+                        message.setTruncated();
+                        out.add(message);
+                    }
                 }
-
-                // end of message
-                checkpoint(State.READ_HEADER);
-                // send message upstream
-                EslMessage decodedMessage = currentMessage;
-                currentMessage = null;
-
-                out.add(decodedMessage);
                 return;
             default:
-                throw new EslDecoderException("Illegal state: [" + state() + ']');
+                throw new EslDecoderException("Illegal state: [" + state + ']');
         }
     }
 
-    private String readToLineFeedOrFail(ByteBuf buffer, int maxLineLegth) {
-        ByteBuilder builder = ByteBuilder.newBuilder();
+    private boolean readHeaders(ByteBuf buffer) {
         while (true) {
-            // this read might fail
-            byte nextByte = buffer.readByte();
-            if (nextByte == LF) {
-                return builder.string();
+            int lineFeed = readToLineFeedOrFail(buffer, maxHeaderSize);
+            if (lineFeed < 0) {
+                return false;
+            }
+            int length = lineFeed - buffer.readerIndex();
+            if (length == 0) {
+                // reached the double '\n'
+                buffer.skipBytes(1);
+                return true;
+            }
+            // split the header line straight from the buffer
+            int lineStart = buffer.readerIndex();
+            String[] headerParts = HeaderParser.splitHeader(buffer, lineStart, length);
+            // do not read in this line again
+            buffer.skipBytes(length + 1);
+            log.trace("read header line [{}: {}]", headerParts[0], headerParts[1]);
+            EslHeaders.Name headerName = EslHeaders.Name.fromLiteral(headerParts[0]);
+            if (headerName != null) {
+                currentMessage.addHeader(headerName, headerParts[1]);
+            } else if (treatUnknownHeadersAsBody) {
+                // cache this 'header' as a body line <-- useful for Outbound client mode
+                currentMessage.addBodyLine(ByteStrings.decode(buffer, lineStart, length));
             } else {
-                // Abort decoding if the decoded line is too large.
-                if (builder.length() >= maxLineLegth) {
-                    throw new TooLongFrameException(
-                            "ESL header line is longer than " + maxLineLegth + " bytes.");
-                }
-                builder.append(nextByte);
+                throw new IllegalStateException("Unhandled ESL header [" + headerParts[0] + ']');
             }
         }
     }
 
-    private String readLine(ByteBuf buffer, int maxLineLength) {
-        ByteBuilder builder = ByteBuilder.newBuilder();
-        while (buffer.isReadable()) {
-            // this read should always succeed
-            byte nextByte = buffer.readByte();
-            if (nextByte == LF) {
-                return builder.string();
-            } else {
-                // Abort decoding if the decoded line is too large.
-                if (builder.length() >= maxLineLength) {
-                    throw new TooLongFrameException(
-                            "ESL message line is longer than " + maxLineLength + " bytes.");
-                }
-                builder.append(nextByte);
+    private void decodeBody(ByteBuf buffer, List<Object> out) {
+        /*
+         *   read the content-length specified
+         */
+        int contentLength = currentMessage.getContentLength();
+        if (buffer.readableBytes() < contentLength) {
+            // wait for more bytes
+            return;
+        }
+        if (dropEvent(buffer, contentLength)) {
+            buffer.skipBytes(contentLength);
+            nextMessage().release();
+            return;
+        }
+        readBody(buffer, contentLength);
+        // end of message, send it upstream
+        out.add(nextMessage());
+    }
+
+    private void readBody(ByteBuf buffer, int contentLength) {
+        log.trace("read [{}] body bytes", contentLength);
+        String contentType = currentMessage.getContentType();
+        if (retainEventBody && isEvent(contentType)) {
+            // zero copy, the message owns the slice until it is released
+            currentMessage.setRawBody(buffer.readRetainedSlice(contentLength));
+            return;
+        }
+        if (EslHeaders.Value.TEXT_EVENT_JSON.equals(contentType) || EslHeaders.Value.TEXT_EVENT_XML.equals(contentType)) {
+            // json and xml are parsed from bytes, copied so the message does not hold on to the receive buffer
+            byte[] body = new byte[contentLength];
+            buffer.readBytes(body);
+            currentMessage.setRawBody(Unpooled.wrappedBuffer(body));
+            return;
+        }
+        // most bodies are line based, so split on LF, straight from the cumulation buffer
+        currentMessage.addBodyLines(buffer, buffer.readerIndex(), contentLength);
+        buffer.skipBytes(contentLength);
+    }
+
+    private boolean isChunked(EslMessage message) {
+        return apiResponseChunkSize > 0 && message.getContentLength() > apiResponseChunkSize
+                && EslHeaders.Value.API_RESPONSE.equals(message.getContentType());
+    }
+
+    private void readBodyChunk(ByteBuf buffer, List<Object> out) {
+        int readable = Math.min(buffer.readableBytes(), remainingBytes);
+        boolean last = readable == remainingBytes;
+        if (!last && readable < apiResponseChunkSize) {
+            // wait for more bytes
+            return;
+        }
+        int readerIndex = buffer.readerIndex();
+        int length = readable;
+        if (!last) {
+            // end the chunk on the last complete line, a line longer than a chunk waits for its line feed
+            int lineFeed = ByteScanner.lastIndexOf(buffer, readerIndex + scannedBytes, readerIndex + readable, LF);
+            if (lineFeed < 0) {
+                scannedBytes = readable;
+                return;
             }
+            length = lineFeed + 1 - readerIndex;
+        }
+        scannedBytes = 0;
+        log.trace("read [{}] body chunk bytes, last [{}]", length, last);
+        out.add(new EslBodyChunk(buffer, readerIndex, length, last));
+        buffer.skipBytes(length);
+        remainingBytes -= length;
+        if (last) {
+            state = State.READ_HEADER;
         }
+    }
 
-        return builder.string();
+    private boolean dropEvent(ByteBuf buffer, int contentLength) {
+        if (eventFilter == null || !EslHeaders.Value.TEXT_EVENT_PLAIN.equals(currentMessage.getContentType())) {
+            return false;
+        }
+        if (eventFilter.accept(buffer, buffer.readerIndex(), contentLength)) {
+            return false;
+        }
+        log.trace("drop [{}] event body bytes", contentLength);
+        return true;
+    }
+
+    private static boolean isEvent(String contentType) {
+        return EslHeaders.Value.TEXT_EVENT_PLAIN.equals(contentType)
+                || EslHeaders.Value.TEXT_EVENT_JSON.equals(contentType)
+                || EslHeaders.Value.TEXT_EVENT_XML.equals(contentType);
+    }
+
+    /**
+     * Finds the line feed terminating the header line at the reader index, continuing from where the
+     * previous call stopped scanning.
+     *
+     * @return the index of the line feed, or -1 if the line is not complete yet
+     */
+    private int readToLineFeedOrFail(ByteBuf buffer, int maxLineLength) {
+        int readerIndex = buffer.readerIndex();
+        int writerIndex = buffer.writerIndex();
+        int lineFeed = ByteScanner.indexOf(buffer, readerIndex + scannedBytes, writerIndex, LF);
+        if (lineFeed < 0) {
+            scannedBytes = writerIndex - readerIndex;
+        } else {
+            scannedBytes = 0;
+        }
+        // Abort decoding if the decoded line is too large.
+        if ((lineFeed < 0 ? writerIndex : lineFeed) - readerIndex > maxLineLength) {
+            throw new TooLongFrameException(
+                    "ESL header line is longer than " + maxLineLength + " bytes.");
+        }
+        return lineFeed;
+    }
+
+    private EslMessage nextMessage() {
+        EslMessage decodedMessage = currentMessage;
+        currentMessage = null;
+        state = State.READ_HEADER;
+        return decodedMessage;
     }
 
     protected enum State {
@@ -203,5 +390,13 @@ public class EslFrameDecoder extends ReplayingDecoder<EslFrameDecoder.State> {
          * 包体
          */
         READ_BODY,
+        /**
+         * 分块读取的包体
+         */
+        READ_BODY_CHUNKS,
+        /**
+         * 丢弃超长的包体
+         */
+        DISCARD_BODY,
     }
 }
@@ -17,6 +17,12 @@
 
 package link.thingscloud.freeswitch.esl.transport.message;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.Recycler;
+import link.thingscloud.freeswitch.esl.transport.util.ByteScanner;
+import link.thingscloud.freeswitch.esl.transport.util.ByteStrings;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
@@ -33,19 +39,60 @@ import java.util.Map;
  * Header lines are parsed and cached in a map keyed by the {@link link.thingscloud.freeswitch.esl.transport.message.EslHeaders.Name} enum.  A message
  * is always expected to have a "Content-Type" header
  * <p>
- * Any Body lines are cached in a list.
+ * Any Body lines are cached in a list. When the {@link EslFrameDecoder} retains event bodies, the body
+ * is kept as a slice of the receive buffer instead and only split into lines when they are first
+ * requested; the slice is released together with the last reference to this message.
+ * <p>
+ * Messages from {@link #newInstance()} are pooled, see
+ * {@link link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption#pooledEvents(boolean)}.
  *
  * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
  * @version $Id: $Id
  * @see EslHeaders.Name
  */
 @Slf4j
-public class EslMessage {
+public class EslMessage extends AbstractReferenceCounted {
+
+    private static final byte LF = 10;
+    private static final Recycler<EslMessage> RECYCLER = new Recycler<EslMessage>() {
+        @Override
+        protected EslMessage newObject(Handle<EslMessage> handle) {
+            return new EslMessage(handle);
+        }
+    };
 
     private final Map<EslHeaders.Name, String> headers = new EnumMap<>(EslHeaders.Name.class);
     private final List<String> body = new ArrayList<>();
 
     private Integer contentLength = null;
+    private ByteBuf rawBody = null;
+    private volatile boolean bodyDecoded = true;
+    private boolean chunked = false;
+    private boolean truncated = false;
+    private final Recycler.Handle<EslMessage> handle;
+
+    /**
+     * <p>Constructor for EslMessage.</p>
+     */
+    public EslMessage() {
+        this(null);
+    }
+
+    private EslMessage(Recycler.Handle<EslMessage> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * A message from the pool, it goes back to the pool once its last reference is released.
+     * After that it must not be used any more.
+     *
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
+     */
+    public static EslMessage newInstance() {
+        EslMessage message = RECYCLER.get();
+        message.setRefCnt(1);
+        return message;
+    }
 
     /**
      * All the received message headers in a map keyed by {@link link.thingscloud.freeswitch.esl.transport.message.EslHeaders.Name}. The string mapped value
@@ -116,9 +163,92 @@ public class EslMessage {
      * @return list with a string for each line received, may be an empty list
      */
     public List<String> getBodyLines() {
+        if (!bodyDecoded) {
+            decodeBody();
+        }
         return body;
     }
 
+    /**
+     * Large {@code api/response} bodies are not buffered by the {@link EslFrameDecoder}, this message only
+     * carries the headers and the body follows in {@link EslBodyChunk}s, see
+     * {@link EslFrameDecoder#apiResponseChunkSize(int)}.
+     *
+     * @return true if and only if the body follows in {@link EslBodyChunk}s
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * A body longer than {@link EslFrameDecoder#maxBodySize(int)} is discarded by the {@link EslFrameDecoder},
+     * this message only carries the headers.
+     *
+     * @return true if and only if the body was discarded
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Convenience method
+     *
+     * @return true if and only if the body is still held as a buffer slice
+     */
+    public boolean hasRawBody() {
+        return rawBody != null;
+    }
+
+    /**
+     * The undecoded body as received, only available when the {@link EslFrameDecoder} retains event bodies.
+     * The buffer is owned by this message and stays valid until the message is released.
+     *
+     * @return the body slice, or null if the body was decoded into lines by the decoder
+     */
+    public ByteBuf getRawBody() {
+        return rawBody;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslMessage retain() {
+        super.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EslMessage touch(Object hint) {
+        if (rawBody != null) {
+            rawBody.touch(hint);
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void deallocate() {
+        if (rawBody != null) {
+            rawBody.release();
+        }
+        if (handle != null) {
+            headers.clear();
+            body.clear();
+            contentLength = null;
+            rawBody = null;
+            bodyDecoded = true;
+            chunked = false;
+            truncated = false;
+            handle.recycle(this);
+        }
+    }
+
     /**
      * Used by the {@link EslFrameDecoder}.
      *
@@ -142,6 +272,81 @@ public class EslMessage {
         body.add(line);
     }
 
+    /**
+     * Used by the {@link EslFrameDecoder}, split the body on LF straight from the buffer.
+     *
+     * @param buffer
+     * @param index
+     * @param length
+     */
+    void addBodyLines(ByteBuf buffer, int index, int length) {
+        splitLines(buffer, index, length, body);
+    }
+
+    static void splitLines(ByteBuf buffer, int index, int length, List<String> lines) {
+        int end = index + length;
+        while (index < end) {
+            int lineFeed = ByteScanner.indexOf(buffer, index, end, LF);
+            int lineEnd = lineFeed < 0 ? end : lineFeed;
+            String bodyLine = ByteStrings.decode(buffer, index, lineEnd - index);
+            log.trace("read body line [{}]", bodyLine);
+            lines.add(bodyLine);
+            index = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Used by the {@link EslFrameDecoder}, moves the headers and body lines read so far to a message that is
+     * not pooled and releases this one.
+     *
+     * @return this message if it is not pooled, otherwise the new message.
+     */
+    EslMessage unpooled() {
+        if (handle == null) {
+            return this;
+        }
+        EslMessage message = new EslMessage();
+        message.headers.putAll(headers);
+        message.body.addAll(body);
+        release();
+        return message;
+    }
+
+    /**
+     * Used by the {@link EslFrameDecoder}, the body follows in {@link EslBodyChunk}s.
+     */
+    void setChunked() {
+        this.chunked = true;
+    }
+
+    /**
+     * Used by the {@link EslFrameDecoder}, the body was discarded.
+     */
+    void setTruncated() {
+        this.truncated = true;
+    }
+
+    /**
+     * Used by the {@link EslFrameDecoder}, the message takes ownership of the retained slice.
+     *
+     * @param rawBody
+     */
+    void setRawBody(ByteBuf rawBody) {
+        this.rawBody = rawBody;
+        this.bodyDecoded = false;
+    }
+
+    private synchronized void decodeBody() {
+        if (bodyDecoded) {
+            return;
+        }
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+        addBodyLines(rawBody, rawBody.readerIndex(), rawBody.readableBytes());
+        bodyDecoded = true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -152,8 +357,17 @@ public class EslMessage {
         sb.append("] headers=");
         sb.append(headers.size());
         sb.append(", body=");
-        sb.append(body.size());
-        sb.append(" lines.");
+        if (chunked) {
+            sb.append("chunked.");
+        } else if (truncated) {
+            sb.append("truncated.");
+        } else if (bodyDecoded) {
+            sb.append(body.size());
+            sb.append(" lines.");
+        } else {
+            sb.append(rawBody.readableBytes());
+            sb.append(" bytes.");
+        }
 
         return sb.toString();
     }
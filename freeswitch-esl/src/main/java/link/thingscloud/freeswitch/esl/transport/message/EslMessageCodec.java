@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+import link.thingscloud.freeswitch.esl.transport.util.Varints;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format of an {@link EslMessage}, for forwarding or persisting messages without going back
+ * to the ESL text format.
+ * <pre>
+ *   version   1 byte, {@link #VERSION}
+ *   kind      1 byte, {@link #KIND_MESSAGE}
+ *   headers   varint count, then per header a varint name id and a varint length prefixed UTF-8 value
+ *   flags     1 byte, {@link #FLAG_CHUNKED}
+ *   body      varint length, then the body bytes as received
+ * </pre>
+ * Header name ids index a fixed table of {@link EslHeaders.Name}s, new names are only ever appended to it.
+ * A decoded message keeps its body as a retained slice of the input buffer, as the {@link EslFrameDecoder}
+ * does when it retains event bodies, so the body bytes are not copied.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ * @see link.thingscloud.freeswitch.esl.transport.event.EslEventCodec
+ */
+public class EslMessageCodec {
+
+    /**
+     * current format version.
+     */
+    public static final byte VERSION = 1;
+    /**
+     * an {@link EslMessage}.
+     */
+    public static final byte KIND_MESSAGE = 'M';
+    /**
+     * an {@link link.thingscloud.freeswitch.esl.transport.event.EslEvent}.
+     */
+    public static final byte KIND_EVENT = 'E';
+    /**
+     * the body follows in {@link EslBodyChunk}s.
+     */
+    public static final byte FLAG_CHUNKED = 1;
+
+    private static final byte LF = 10;
+
+    /**
+     * header name ids of version 1, the id is the index + 1
+     */
+    private static final EslHeaders.Name[] NAMES = {
+            EslHeaders.Name.CONTENT_TYPE,
+            EslHeaders.Name.CONTENT_LENGTH,
+            EslHeaders.Name.REPLY_TEXT,
+            EslHeaders.Name.JOB_UUID,
+            EslHeaders.Name.SOCKET_MODE,
+            EslHeaders.Name.CONTROL
+    };
+    private static final int[] IDS = new int[EslHeaders.Name.values().length];
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            IDS[NAMES[i].ordinal()] = i + 1;
+        }
+    }
+
+    private EslMessageCodec() {
+    }
+
+    /**
+     * <p>encode.</p>
+     *
+     * @param message a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
+     * @param out     a {@link io.netty.buffer.ByteBuf} object.
+     */
+    public static void encode(EslMessage message, ByteBuf out) {
+        writePreamble(out, KIND_MESSAGE);
+        writeHeaders(message.getHeaders(), out);
+        out.writeByte(message.isChunked() ? FLAG_CHUNKED : 0);
+        if (message.hasRawBody()) {
+            ByteBuf rawBody = message.getRawBody();
+            Varints.writeVarint(out, rawBody.readableBytes());
+            out.writeBytes(rawBody, rawBody.readerIndex(), rawBody.readableBytes());
+        } else {
+            writeBodyLines(message.getBodyLines(), out);
+        }
+    }
+
+    /**
+     * Decodes a message, the returned message holds a retained slice of the input buffer and must be released.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the input is not a message of a known version.
+     */
+    public static EslMessage decode(ByteBuf in) {
+        readPreamble(in, KIND_MESSAGE);
+        EslMessage message = readHeaders(in);
+        if (!in.isReadable()) {
+            throw new EslDecoderException("Truncated message flags");
+        }
+        if ((in.readByte() & FLAG_CHUNKED) != 0) {
+            message.setChunked();
+        }
+        int length = Varints.readLength(in);
+        if (length > 0) {
+            message.setRawBody(in.readRetainedSlice(length));
+        }
+        return message;
+    }
+
+    /**
+     * <p>writePreamble.</p>
+     *
+     * @param out  a {@link io.netty.buffer.ByteBuf} object.
+     * @param kind {@link #KIND_MESSAGE} or {@link #KIND_EVENT}.
+     */
+    public static void writePreamble(ByteBuf out, byte kind) {
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+    }
+
+    /**
+     * <p>readPreamble.</p>
+     *
+     * @param in   a {@link io.netty.buffer.ByteBuf} object.
+     * @param kind {@link #KIND_MESSAGE} or {@link #KIND_EVENT}.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the version or the kind do not match.
+     */
+    public static void readPreamble(ByteBuf in, byte kind) {
+        if (in.readableBytes() < 2) {
+            throw new EslDecoderException("Truncated preamble");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new EslDecoderException("Unsupported binary format version " + version);
+        }
+        byte actual = in.readByte();
+        if (actual != kind) {
+            throw new EslDecoderException("Unexpected binary kind [" + (char) actual + "], expected [" + (char) kind + ']');
+        }
+    }
+
+    /**
+     * Writes the message headers of a message or of an event.
+     *
+     * @param headers a {@link java.util.Map} object.
+     * @param out     a {@link io.netty.buffer.ByteBuf} object.
+     */
+    public static void writeHeaders(Map<EslHeaders.Name, String> headers, ByteBuf out) {
+        Varints.writeVarint(out, headers.size());
+        for (Map.Entry<EslHeaders.Name, String> header : headers.entrySet()) {
+            int id = IDS[header.getKey().ordinal()];
+            if (id == 0) {
+                throw new IllegalStateException("No binary id for header [" + header.getKey().literal() + ']');
+            }
+            Varints.writeVarint(out, id);
+            Varints.writeString(out, header.getValue());
+        }
+    }
+
+    /**
+     * Reads message headers written by {@link #writeHeaders(Map, ByteBuf)} into a new message without a body.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return a {@link link.thingscloud.freeswitch.esl.transport.message.EslMessage} object.
+     */
+    public static EslMessage readHeaders(ByteBuf in) {
+        EslMessage message = new EslMessage();
+        int count = Varints.readVarint(in);
+        for (int i = 0; i < count; i++) {
+            int id = Varints.readVarint(in);
+            if (id == 0 || id > NAMES.length) {
+                throw new EslDecoderException("Unknown binary header id " + id);
+            }
+            message.addHeader(NAMES[id - 1], Varints.readString(in));
+        }
+        return message;
+    }
+
+    private static void writeBodyLines(List<String> lines, ByteBuf out) {
+        int length = 0;
+        for (String line : lines) {
+            length += ByteBufUtil.utf8Bytes(line) + 1;
+        }
+        Varints.writeVarint(out, length);
+        for (String line : lines) {
+            ByteBufUtil.writeUtf8(out, line);
+            out.writeByte(LF);
+        }
+    }
+}
@@ -78,9 +78,9 @@ public class ByteBuilder {
     /**
      * <p>string.</p>
      *
-     * @return a {@link java.lang.String} object.
+     * @return a {@link java.lang.String} object, see {@link ByteStrings#decode(byte[], int, int)}.
      */
     public String string() {
-        return new String(b, 0, index);
+        return ByteStrings.decode(b, 0, index);
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Finds a byte in a {@link ByteBuf} eight bytes at a time.
+ * <p>
+ * Each step reads a little endian long and turns every byte equal to the searched one into {@code 0x80} with
+ * SWAR (SIMD within a register) bit operations, the position of the lowest or highest such byte is then one
+ * {@code numberOfTrailingZeros} or {@code numberOfLeadingZeros} away. The few bytes left over at either end are
+ * compared one by one.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class ByteScanner {
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long ONES = 0x0101010101010101L;
+
+    private ByteScanner() {
+    }
+
+    /**
+     * <p>indexOf.</p>
+     *
+     * @param buffer    a {@link io.netty.buffer.ByteBuf} object.
+     * @param fromIndex the first index to look at.
+     * @param toIndex   the index after the last one to look at.
+     * @param value     a byte.
+     * @return the index of the first occurrence of the value, -1 if there is none.
+     */
+    public static int indexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        long pattern = pattern(value);
+        int index = fromIndex;
+        for (; index + Long.BYTES <= toIndex; index += Long.BYTES) {
+            long found = matches(buffer.getLongLE(index), pattern);
+            if (found != 0) {
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; index < toIndex; index++) {
+            if (buffer.getByte(index) == value) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>lastIndexOf.</p>
+     *
+     * @param buffer    a {@link io.netty.buffer.ByteBuf} object.
+     * @param fromIndex the first index to look at.
+     * @param toIndex   the index after the last one to look at.
+     * @param value     a byte.
+     * @return the index of the last occurrence of the value, -1 if there is none.
+     */
+    public static int lastIndexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        long pattern = pattern(value);
+        int index = toIndex;
+        for (; index - Long.BYTES >= fromIndex; index -= Long.BYTES) {
+            long found = matches(buffer.getLongLE(index - Long.BYTES), pattern);
+            if (found != 0) {
+                return index - 1 - (Long.numberOfLeadingZeros(found) >>> 3);
+            }
+        }
+        for (index--; index >= fromIndex; index--) {
+            if (buffer.getByte(index) == value) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static long pattern(byte value) {
+        return (value & 0xFFL) * ONES;
+    }
+
+    /**
+     * The exact variant of the zero byte test, without false positives next to a match, so that the highest
+     * set bit can be trusted as well as the lowest.
+     *
+     * @return {@code 0x80} in every byte equal to the pattern byte, 0 in all the others
+     */
+    private static long matches(long word, long pattern) {
+        long input = word ^ pattern;
+        long tmp = (input & LOW_BITS) + LOW_BITS;
+        return ~(tmp | input | LOW_BITS);
+    }
+}
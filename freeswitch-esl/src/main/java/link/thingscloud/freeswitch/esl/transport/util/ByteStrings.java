@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds Strings from header and body bytes of ESL frames.
+ * <p>
+ * ESL header lines are ASCII in practice, so a run of bytes without the high bit set is copied straight
+ * into a Latin-1 String (a compact String on JDK 9+) without going through a charset decoder. Only bytes
+ * with the high bit set are decoded, always as UTF-8, so the result no longer depends on {@code file.encoding}.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class ByteStrings {
+
+    private static final int MAX_SCRATCH_SIZE = 8192;
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    private ByteStrings() {
+    }
+
+    /**
+     * <p>decode.</p>
+     *
+     * @param bytes  an array of {@link byte} objects.
+     * @param offset the index of the first byte.
+     * @param length the number of bytes.
+     * @return a {@link java.lang.String} object.
+     */
+    @SuppressWarnings("deprecation")
+    public static String decode(byte[] bytes, int offset, int length) {
+        // no early exit, header lines are ASCII and the branch free loop is cheaper
+        int bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            bits |= bytes[i];
+        }
+        if (bits < 0) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        // plain copy of each byte into a char, there is nothing to decode
+        return new String(bytes, 0, offset, length);
+    }
+
+    /**
+     * <p>decode.</p>
+     *
+     * @param buffer a {@link io.netty.buffer.ByteBuf} object.
+     * @param index  the index of the first byte.
+     * @param length the number of bytes.
+     * @return a {@link java.lang.String} object.
+     */
+    public static String decode(ByteBuf buffer, int index, int length) {
+        if (length == 0) {
+            return "";
+        }
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + index, length);
+        }
+        // direct buffers are copied out once, the checks are then done on the array
+        byte[] bytes = scratch(length);
+        buffer.getBytes(index, bytes, 0, length);
+        return decode(bytes, 0, length);
+    }
+
+    private static byte[] scratch(int length) {
+        if (length > MAX_SCRATCH_SIZE) {
+            return new byte[length];
+        }
+        byte[] bytes = SCRATCH.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length << 1)];
+            SCRATCH.set(bytes);
+        }
+        return bytes;
+    }
+}
@@ -17,8 +17,12 @@
 
 package link.thingscloud.freeswitch.esl.transport.util;
 
+import io.netty.buffer.ByteBuf;
+
 /**
  * <p>HeaderParser class.</p>
+ * <p>
+ * Whitespace is any character up to and including the space, as for {@link String#trim()}.
  *
  * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
  * @version $Id: $Id
@@ -48,7 +52,7 @@ public class HeaderParser {
         nameStart = findNonWhitespace(sb, 0);
         for (nameEnd = nameStart; nameEnd < length; nameEnd++) {
             char ch = sb.charAt(nameEnd);
-            if (ch == ':' || Character.isWhitespace(ch)) {
+            if (ch == ':' || ch <= ' ') {
                 break;
             }
         }
@@ -75,10 +79,58 @@ public class HeaderParser {
         };
     }
 
+    /**
+     * Split a header line straight from the frame bytes, without building a String of the whole line.
+     *
+     * @param buffer a {@link io.netty.buffer.ByteBuf} object.
+     * @param index  the index of the first byte of the line.
+     * @param length the length of the line, without the line feed.
+     * @return a String[] array with header name at 0 and header value at 1
+     * @see #splitHeader(String)
+     */
+    public static String[] splitHeader(ByteBuf buffer, int index, int length) {
+        final int end = index + length;
+        int nameStart = findNonWhitespace(buffer, index, end);
+        int colon = ByteScanner.indexOf(buffer, nameStart, end, (byte) ':');
+        int nameEnd = nameStart;
+        int limit = colon < 0 ? end : colon;
+        while (nameEnd < limit && !isWhitespace(buffer.getByte(nameEnd))) {
+            nameEnd++;
+        }
+        String name = ByteStrings.decode(buffer, nameStart, nameEnd - nameStart);
+        int valueStart = findNonWhitespace(buffer, colon < 0 ? end : colon + 1, end);
+        int valueEnd = end;
+        while (valueEnd > valueStart && isWhitespace(buffer.getByte(valueEnd - 1))) {
+            valueEnd--;
+        }
+        return new String[]{
+                name,
+                ByteStrings.decode(buffer, valueStart, valueEnd - valueStart)
+        };
+    }
+
+    private static int findNonWhitespace(ByteBuf buffer, int index, int end) {
+        while (index < end && isWhitespace(buffer.getByte(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * <p>isWhitespace.</p>
+     *
+     * @param b a byte of a header line.
+     * @return true if and only if the byte is an ASCII control character or a space.
+     */
+    public static boolean isWhitespace(byte b) {
+        // bytes of multi-byte UTF-8 characters are negative
+        return b >= 0 && b <= ' ';
+    }
+
     private static int findNonWhitespace(String sb, int offset) {
         int result;
         for (result = offset; result < sb.length(); result++) {
-            if (!Character.isWhitespace(sb.charAt(result))) {
+            if (sb.charAt(result) > ' ') {
                 break;
             }
         }
@@ -88,7 +140,7 @@ public class HeaderParser {
     private static int findEndOfString(String sb) {
         int result;
         for (result = sb.length(); result > 0; result--) {
-            if (!Character.isWhitespace(sb.charAt(result - 1))) {
+            if (sb.charAt(result - 1) > ' ') {
                 break;
             }
         }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ByteProcessor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>UrlDecoder class.</p>
+ * <p>
+ * Decodes the URL encoded event header values written by FreeSWITCH, with the same result as
+ * {@code java.net.URLDecoder.decode(value, "UTF-8")}. Values without any {@code '%'} or {@code '+'}
+ * are returned as they are, without allocating, and encoded values are decoded straight from the
+ * frame bytes. A malformed escape sequence leaves the value undecoded.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class UrlDecoder {
+
+    private static final ByteProcessor FIND_ENCODED = value -> value != '%' && value != '+';
+
+    private UrlDecoder() {
+    }
+
+    /**
+     * <p>decode.</p>
+     *
+     * @param value a {@link java.lang.String} object.
+     * @return the decoded value, the same instance if there is nothing to decode.
+     */
+    public static String decode(String value) {
+        int length = value.length();
+        int index = 0;
+        while (index < length) {
+            char ch = value.charAt(index);
+            if (ch == '%' || ch == '+') {
+                break;
+            }
+            index++;
+        }
+        if (index == length) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(value, 0, index);
+        byte[] bytes = null;
+        while (index < length) {
+            char ch = value.charAt(index);
+            if (ch == '+') {
+                sb.append(' ');
+                index++;
+            } else if (ch == '%') {
+                if (bytes == null) {
+                    bytes = new byte[(length - index) / 3];
+                }
+                // a run of %XX escapes is one UTF-8 byte sequence
+                int count = 0;
+                while (index < length && value.charAt(index) == '%') {
+                    int b = index + 2 < length ? hexValue(value.charAt(index + 1), value.charAt(index + 2)) : -1;
+                    if (b < 0) {
+                        return value;
+                    }
+                    bytes[count++] = (byte) b;
+                    index += 3;
+                }
+                sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+            } else {
+                sb.append(ch);
+                index++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * <p>decode.</p>
+     *
+     * @param buffer a {@link io.netty.buffer.ByteBuf} object.
+     * @param index  the index of the first value byte.
+     * @param length the number of value bytes.
+     * @return the decoded value.
+     */
+    public static String decode(ByteBuf buffer, int index, int length) {
+        int encoded = length == 0 ? -1 : buffer.forEachByte(index, length, FIND_ENCODED);
+        if (encoded < 0) {
+            return ByteStrings.decode(buffer, index, length);
+        }
+        int end = index + length;
+        byte[] bytes = new byte[length];
+        int count = 0;
+        // the bytes before the first escape are taken as they are
+        buffer.getBytes(index, bytes, 0, encoded - index);
+        count += encoded - index;
+        for (int i = encoded; i < end; i++) {
+            byte b = buffer.getByte(i);
+            if (b == '+') {
+                bytes[count++] = ' ';
+            } else if (b == '%') {
+                int decoded = i + 2 < end ? hexValue(buffer.getByte(i + 1), buffer.getByte(i + 2)) : -1;
+                if (decoded < 0) {
+                    return ByteStrings.decode(buffer, index, length);
+                }
+                bytes[count++] = (byte) decoded;
+                i += 2;
+            } else {
+                bytes[count++] = b;
+            }
+        }
+        return new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private static int hexValue(int high, int low) {
+        int h = Character.digit(high, 16);
+        int l = Character.digit(low, 16);
+        return h < 0 || l < 0 ? -1 : (h << 4) | l;
+    }
+}
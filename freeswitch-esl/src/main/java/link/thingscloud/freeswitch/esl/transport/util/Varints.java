@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+
+/**
+ * Unsigned LEB128 varints and length prefixed UTF-8 strings, the building blocks of the binary event format.
+ * <p>
+ * Lengths below 128 take a single byte, which covers nearly all ESL header names and values.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class Varints {
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private Varints() {
+    }
+
+    /**
+     * <p>writeVarint.</p>
+     *
+     * @param out   a {@link io.netty.buffer.ByteBuf} object.
+     * @param value a value, not negative.
+     */
+    public static void writeVarint(ByteBuf out, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative varint " + value);
+        }
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * <p>readVarint.</p>
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return the value read.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the varint is truncated or too long.
+     */
+    public static int readVarint(ByteBuf in) {
+        int value = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            if (!in.isReadable()) {
+                throw new EslDecoderException("Truncated varint");
+            }
+            byte b = in.readByte();
+            value |= (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new EslDecoderException("Malformed varint");
+    }
+
+    /**
+     * Writes the UTF-8 length of the value as a varint, then its UTF-8 bytes.
+     *
+     * @param out   a {@link io.netty.buffer.ByteBuf} object.
+     * @param value a {@link java.lang.String} object.
+     */
+    public static void writeString(ByteBuf out, String value) {
+        writeVarint(out, ByteBufUtil.utf8Bytes(value));
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    /**
+     * Reads a value written by {@link #writeString(ByteBuf, String)}, straight from the buffer.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return a {@link java.lang.String} object.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the string is truncated.
+     */
+    public static String readString(ByteBuf in) {
+        int length = readLength(in);
+        String value = ByteStrings.decode(in, in.readerIndex(), length);
+        in.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * Like {@link #writeString(ByteBuf, String)} but the value may be null, the length is written + 1 so that
+     * 0 stands for null.
+     *
+     * @param out   a {@link io.netty.buffer.ByteBuf} object.
+     * @param value a {@link java.lang.String} object, may be null.
+     */
+    public static void writeNullableString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        writeVarint(out, ByteBufUtil.utf8Bytes(value) + 1);
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    /**
+     * Reads a value written by {@link #writeNullableString(ByteBuf, String)}.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return a {@link java.lang.String} object, or null.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if the string is truncated.
+     */
+    public static String readNullableString(ByteBuf in) {
+        int length = readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.readableBytes()) {
+            throw new EslDecoderException("Truncated value of " + length + " bytes");
+        }
+        String value = ByteStrings.decode(in, in.readerIndex(), length);
+        in.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * Reads a varint length and checks that as many bytes are readable.
+     *
+     * @param in a {@link io.netty.buffer.ByteBuf} object.
+     * @return the length read.
+     * @throws link.thingscloud.freeswitch.esl.exception.EslDecoderException if fewer bytes are readable.
+     */
+    public static int readLength(ByteBuf in) {
+        int length = readVarint(in);
+        if (length > in.readableBytes()) {
+            throw new EslDecoderException("Truncated value of " + length + " bytes");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>VirtualThreads class.</p>
+ * <p>
+ * Virtual threads need Java 21, this class is the Java 8 version: they are never supported. The jar is a
+ * multi-release jar, on Java 21 and later the version under {@code META-INF/versions/21} is loaded instead.
+ *
+ * @author : <a href="mailto:ant.zhou@aliyun.com">zhouhailin</a>
+ * @version $Id: $Id
+ */
+public class VirtualThreads {
+
+    /**
+     * private constructor
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * <p>isSupported.</p>
+     *
+     * @return true if the runtime can start virtual threads.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * <p>newThreadPerTaskExecutor.</p>
+     *
+     * @param prefix the name prefix of the threads
+     * @return an executor starting a virtual thread for each task.
+     * @throws java.lang.UnsupportedOperationException if virtual threads are not supported, see {@link #isSupported()}.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        throw new UnsupportedOperationException("virtual threads need Java 21 or later");
+    }
+}
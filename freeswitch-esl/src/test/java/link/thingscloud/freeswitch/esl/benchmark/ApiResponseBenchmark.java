@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.message.EslBodyChunk;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a 4 MB {@code show channels} like {@code api/response} arriving in 64 KB reads, buffered as a whole
+ * ({@code apiResponseChunkSize} 0) or passed on in chunks while it arrives. Run with {@code -prof gc}.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseBenchmark {
+
+    private static final int READ_SIZE = 65536;
+
+    @Param({"0", "65536"})
+    public int apiResponseChunkSize;
+
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        StringBuilder body = new StringBuilder("uuid,direction,created,created_epoch,name,state,cid_name,cid_num\n");
+        for (int i = 0; body.length() < 4 * 1024 * 1024; i++) {
+            body.append("7f4db0f2-b848-4f3b-8a4e-").append(100000000000L + i)
+                    .append(",inbound,2020-06-01 10:00:00,1590976800,sofia/internal/1000@10.0.0.1,CS_EXECUTE,1000,1000\n");
+        }
+        frame = EslSamples.apiResponseFrame(body.toString());
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).apiResponseChunkSize(apiResponseChunkSize));
+        for (int i = 0; i < frame.length; i += READ_SIZE) {
+            channel.writeInbound(Unpooled.wrappedBuffer(frame, i, Math.min(READ_SIZE, frame.length - i)));
+            for (Object msg = channel.readInbound(); msg != null; msg = channel.readInbound()) {
+                if (msg instanceof EslBodyChunk) {
+                    ((EslBodyChunk) msg).getLines().forEach(bh::consume);
+                } else {
+                    ((EslMessage) msg).getBodyLines().forEach(bh::consume);
+                }
+            }
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ApiResponseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
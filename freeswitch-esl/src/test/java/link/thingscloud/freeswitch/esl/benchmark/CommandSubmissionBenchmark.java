@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import link.thingscloud.freeswitch.esl.inbound.NettyInboundClient;
+import link.thingscloud.freeswitch.esl.inbound.option.ConnectState;
+import link.thingscloud.freeswitch.esl.inbound.option.InboundClientOption;
+import link.thingscloud.freeswitch.esl.inbound.option.ServerOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submits {@code api uuid_setvar} commands to one inbound connection from a growing number of caller threads,
+ * see {@link #main(String[])}, against the mock ESL server of {@link CommandThroughputBenchmark}.
+ * <p>
+ * {@code sync} waits for each reply, {@code async} keeps a window of commands in flight per thread, so the
+ * submission path itself is what the threads contend on.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandSubmissionBenchmark {
+
+    private static final int WINDOW = 16;
+    private static final String ARG = "3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10 campaign_id 42";
+
+    private EventLoopGroup serverGroup;
+    private Channel server;
+    private NettyInboundClient client;
+    private String addr;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        serverGroup = new NioEventLoopGroup(1);
+        server = new ServerBootstrap().group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new DelimiterBasedFrameDecoder(8192, Unpooled.wrappedBuffer(new byte[]{'\n', '\n'})));
+                        ch.pipeline().addLast(new CommandThroughputBenchmark.MockEslServerHandler());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        ServerOption serverOption = new ServerOption("127.0.0.1", port).password("ClueCon");
+        client = new NettyInboundClient(new InboundClientOption()
+                .readerIdleTimeSeconds(0)
+                .addServerOption(serverOption));
+        client.start();
+        addr = serverOption.addr();
+        while (serverOption.state() != ConnectState.AUTHED) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        client.shutdown();
+        server.close().sync();
+        serverGroup.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public Object sync() {
+        return client.sendSyncApiCommand(addr, "uuid_setvar", ARG);
+    }
+
+    @Benchmark
+    public Object async() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            futures[i] = client.sendApiCommandAsync(addr, "uuid_setvar", ARG);
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 32, 64}) {
+            new Runner(new OptionsBuilder().include(CommandSubmissionBenchmark.class.getSimpleName())
+                    .threads(threads).build()).run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.ReplayingEslFrameDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a stream of 100 CHANNEL_CREATE / CHANNEL_HANGUP_COMPLETE events delivered in TCP sized
+ * segments, comparing {@link EslFrameDecoder} with the original {@link ReplayingEslFrameDecoder}.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EslFrameDecoderBenchmark {
+
+    private static final int EVENTS = 100;
+
+    @Param({"replaying", "scanning"})
+    public String decoder;
+
+    @Param({"1460", "65536"})
+    public int segmentSize;
+
+    private byte[][] segments;
+
+    @Setup
+    public void setup() {
+        byte[][] frames = new byte[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            frames[i] = EslSamples.plainEventFrame(i % 2 == 0 ? EslSamples.CHANNEL_CREATE : EslSamples.CHANNEL_HANGUP_COMPLETE);
+        }
+        byte[] stream = EslSamples.concat(frames);
+        segments = new byte[(stream.length + segmentSize - 1) / segmentSize][];
+        for (int i = 0; i < segments.length; i++) {
+            int offset = i * segmentSize;
+            segments[i] = new byte[Math.min(segmentSize, stream.length - offset)];
+            System.arraycopy(stream, offset, segments[i], 0, segments[i].length);
+        }
+    }
+
+    @Benchmark
+    public int decode() {
+        ChannelHandler handler = "replaying".equals(decoder) ? new ReplayingEslFrameDecoder(8192) : new EslFrameDecoder(8192);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        for (byte[] segment : segments) {
+            channel.writeInbound(Unpooled.wrappedBuffer(segment));
+        }
+        int count = 0;
+        while (channel.readInbound() != null) {
+            count++;
+        }
+        channel.finishAndReleaseAll();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EslFrameDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventCodec;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads back 100 CHANNEL_CREATE / CHANNEL_HANGUP_COMPLETE events, either in the ESL
+ * {@code text/event-plain} format or in the binary format of {@link EslEventCodec}. The size of each
+ * stream is logged at tear down.
+ *
+ * @author zhouhailin
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private static final int EVENTS = 100;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private EslEvent[] events;
+    private byte[] stream;
+
+    @Setup
+    public void setup() {
+        byte[][] frames = new byte[EVENTS][];
+        events = new EslEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            frames[i] = EslSamples.plainEventFrame(i % 2 == 0 ? EslSamples.CHANNEL_CREATE : EslSamples.CHANNEL_HANGUP_COMPLETE);
+            events[i] = new EslEvent(EslSamples.decode(frames[i], false));
+        }
+        ByteBuf out = Unpooled.buffer();
+        encode(out);
+        stream = ByteBufUtil.getBytes(out);
+    }
+
+    @TearDown
+    public void tearDown() {
+        log.info("{} stream of {} events : {} bytes", format, EVENTS, stream.length);
+    }
+
+    @Benchmark
+    public void encode(Blackhole bh) {
+        ByteBuf out = Unpooled.buffer(stream.length);
+        encode(out);
+        bh.consume(out.readableBytes());
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) {
+        if ("binary".equals(format)) {
+            ByteBuf in = Unpooled.wrappedBuffer(stream);
+            while (in.isReadable()) {
+                EslEvent event = EslEventCodec.decode(in);
+                bh.consume(event.getEventHeaders().size());
+            }
+            return;
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192));
+        channel.writeInbound(Unpooled.wrappedBuffer(stream));
+        EslMessage message;
+        while ((message = channel.readInbound()) != null) {
+            EslEvent event = new EslEvent(message);
+            bh.consume(event.getEventHeaders().size());
+            event.release();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private void encode(ByteBuf out) {
+        for (EslEvent event : events) {
+            if ("binary".equals(format)) {
+                EslEventCodec.encode(event, out);
+            } else {
+                out.writeBytes(EslSamples.frame("text/event-plain", plainBody(event)));
+            }
+        }
+    }
+
+    private static byte[] plainBody(EslEvent event) {
+        StringBuilder sb = new StringBuilder(4096);
+        try {
+            for (Map.Entry<String, String> header : event.getEventHeaders().entrySet()) {
+                sb.append(header.getKey()).append(": ").append(URLEncoder.encode(header.getValue(), "UTF-8")).append('\n');
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        sb.append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
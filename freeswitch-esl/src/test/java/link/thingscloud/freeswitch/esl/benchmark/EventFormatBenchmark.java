@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventHeaderNames;
+import link.thingscloud.freeswitch.esl.transport.event.LazyEslEvent;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes 100 CHANNEL_CREATE / CHANNEL_HANGUP_COMPLETE events subscribed with {@code event plain},
+ * {@code event json} or {@code event xml}, the way the inbound client does, then reads either three headers, as a typical
+ * listener does, or all of them.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventFormatBenchmark {
+
+    private static final int EVENTS = 100;
+
+    @Param({"plain", "json", "xml"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean retainEventBody;
+
+    private byte[] stream;
+
+    @Setup
+    public void setup() {
+        byte[][] frames = new byte[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            String resource = i % 2 == 0 ? EslSamples.CHANNEL_CREATE : EslSamples.CHANNEL_HANGUP_COMPLETE;
+            if ("json".equals(format)) {
+                frames[i] = EslSamples.jsonEventFrame(resource);
+            } else if ("xml".equals(format)) {
+                frames[i] = EslSamples.xmlEventFrame(resource);
+            } else {
+                frames[i] = EslSamples.plainEventFrame(resource);
+            }
+        }
+        stream = EslSamples.concat(frames);
+    }
+
+    @Benchmark
+    public void fewHeaders(Blackhole bh) {
+        EmbeddedChannel channel = decode();
+        EslMessage message;
+        while ((message = channel.readInbound()) != null) {
+            EslEvent event = newEslEvent(message);
+            bh.consume(event.getEventName());
+            bh.consume(event.getEventHeader(EslEventHeaderNames.UNIQUE_ID));
+            bh.consume(event.getEventHeader(EslEventHeaderNames.CHANNEL_STATE));
+            event.release();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void allHeaders(Blackhole bh) {
+        EmbeddedChannel channel = decode();
+        EslMessage message;
+        while ((message = channel.readInbound()) != null) {
+            EslEvent event = newEslEvent(message);
+            bh.consume(event.getEventHeaders().size());
+            event.release();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel decode() {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).retainEventBody(retainEventBody));
+        channel.writeInbound(Unpooled.wrappedBuffer(stream));
+        return channel;
+    }
+
+    private static EslEvent newEslEvent(EslMessage message) {
+        return message.hasRawBody() && "text/event-plain".equals(message.getContentType())
+                ? new LazyEslEvent(message) : new EslEvent(message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.event.CompactHeaderMap;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventHeaderNames;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and reads the header maps of 1,000 CHANNEL_CREATE / CHANNEL_HANGUP_COMPLETE events, comparing
+ * {@link HashMap} with {@link CompactHeaderMap}. The retained size of the 1,000 maps, without the header
+ * name and value Strings, is logged at the end of each trial.
+ *
+ * @author zhouhailin
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventHeadersBenchmark {
+
+    private static final int EVENTS = 1000;
+
+    @Param({"hashMap", "compact"})
+    public String map;
+
+    private String[][] names;
+    private String[][] values;
+    private List<Map<String, String>> maps;
+
+    @Setup
+    public void setup() {
+        names = new String[EVENTS][];
+        values = new String[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            String resource = i % 2 == 0 ? EslSamples.CHANNEL_CREATE : EslSamples.CHANNEL_HANGUP_COMPLETE;
+            Map<String, String> headers = new EslEvent(EslSamples.decode(EslSamples.plainEventFrame(resource), false)).getEventHeaders();
+            names[i] = headers.keySet().toArray(new String[0]);
+            values[i] = new String[names[i].length];
+            for (int j = 0; j < names[i].length; j++) {
+                // every event has its own values, while the names are shared
+                values[i][j] = new String(headers.get(names[i][j]));
+            }
+        }
+        maps = build();
+    }
+
+    @TearDown
+    public void footprint() {
+        List<Object> strings = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            for (int j = 0; j < names[i].length; j++) {
+                strings.add(names[i][j]);
+                strings.add(values[i][j]);
+            }
+        }
+        long total = GraphLayout.parseInstance(maps.toArray()).totalSize();
+        long data = GraphLayout.parseInstance(strings.toArray()).totalSize();
+        log.info("{} : {} bytes of map overhead per {} events", map, total - data, EVENTS);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> build() {
+        List<Map<String, String>> result = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            Map<String, String> headers = "compact".equals(map) ? new CompactHeaderMap(names[i].length) : new HashMap<>(names[i].length);
+            for (int j = 0; j < names[i].length; j++) {
+                headers.put(names[i][j], values[i][j]);
+            }
+            result.add(headers);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        for (Map<String, String> headers : maps) {
+            bh.consume(headers.get(EslEventHeaderNames.EVENT_NAME));
+            bh.consume(headers.get(EslEventHeaderNames.UNIQUE_ID));
+            bh.consume(headers.get("variable_sip_call_id"));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventHeadersBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.util.ByteStrings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds one header line String per operation, cycling through the lines of a CHANNEL_CREATE and a
+ * CHANNEL_HANGUP_COMPLETE event held in a direct buffer, as the frame decoder receives them. {@code utf8}
+ * appends two CJK characters to every line so that each one takes the UTF-8 path.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderLineBenchmark {
+
+    private static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
+
+    @Param({"ascii", "utf8"})
+    public String line;
+
+    private ByteBuf buffer;
+    private byte[] bytes;
+    private int[] lineStarts;
+    private int[] lineLengths;
+    private int next;
+
+    @Setup
+    public void setup() {
+        byte[] body = EslSamples.concat(EslSamples.eventBody(EslSamples.CHANNEL_CREATE),
+                EslSamples.eventBody(EslSamples.CHANNEL_HANGUP_COMPLETE));
+        byte[] suffix = "utf8".equals(line) ? " \u5f20\u4e09".getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<int[]> ranges = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < body.length; i++) {
+            if (body[i] == '\n') {
+                if (i > lineStart) {
+                    int start = out.size();
+                    out.write(body, lineStart, i - lineStart);
+                    out.write(suffix, 0, suffix.length);
+                    ranges.add(new int[]{start, out.size() - start});
+                }
+                lineStart = i + 1;
+            }
+        }
+        bytes = out.toByteArray();
+        buffer = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        lineStarts = new int[ranges.size()];
+        lineLengths = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            lineStarts[i] = ranges.get(i)[0];
+            lineLengths[i] = ranges.get(i)[1];
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+    }
+
+    private int nextLine() {
+        int i = next;
+        next = i + 1 == lineStarts.length ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public String defaultCharset() {
+        int i = nextLine();
+        return buffer.toString(lineStarts[i], lineLengths[i], DEFAULT_CHARSET);
+    }
+
+    @Benchmark
+    public String utf8Decoder() {
+        int i = nextLine();
+        return buffer.toString(lineStarts[i], lineLengths[i], StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String byteStrings() {
+        int i = nextLine();
+        return ByteStrings.decode(buffer, lineStarts[i], lineLengths[i]);
+    }
+
+    @Benchmark
+    public String newString() {
+        int i = nextLine();
+        return new String(bytes, lineStarts[i], lineLengths[i], DEFAULT_CHARSET);
+    }
+
+    @Benchmark
+    public String byteStringsArray() {
+        int i = nextLine();
+        return ByteStrings.decode(bytes, lineStarts[i], lineLengths[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HeaderLineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
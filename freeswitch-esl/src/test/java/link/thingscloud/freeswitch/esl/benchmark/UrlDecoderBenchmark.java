@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.util.UrlDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL decodes every header value of a CHANNEL_CREATE and a CHANNEL_HANGUP_COMPLETE event, comparing
+ * {@link URLDecoder} with {@link UrlDecoder} on strings and straight on the frame bytes.
+ *
+ * @author zhouhailin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlDecoderBenchmark {
+
+    private String[] values;
+    private ByteBuf buffer;
+    private int[] valueStarts;
+    private int[] valueLengths;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = EslSamples.concat(EslSamples.eventBody(EslSamples.CHANNEL_CREATE),
+                EslSamples.eventBody(EslSamples.CHANNEL_HANGUP_COMPLETE));
+        List<int[]> ranges = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i == bytes.length || bytes[i] == '\n') {
+                int colon = lineStart;
+                while (colon < i && bytes[colon] != ':') {
+                    colon++;
+                }
+                if (colon + 2 <= i) {
+                    ranges.add(new int[]{colon + 2, i - colon - 2});
+                }
+                lineStart = i + 1;
+            }
+        }
+        buffer = Unpooled.wrappedBuffer(bytes);
+        values = new String[ranges.size()];
+        valueStarts = new int[ranges.size()];
+        valueLengths = new int[ranges.size()];
+        for (int i = 0; i < values.length; i++) {
+            valueStarts[i] = ranges.get(i)[0];
+            valueLengths[i] = ranges.get(i)[1];
+            values[i] = new String(bytes, valueStarts[i], valueLengths[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public void jdkUrlDecoder(Blackhole bh) throws UnsupportedEncodingException {
+        for (String value : values) {
+            bh.consume(URLDecoder.decode(value, "UTF-8"));
+        }
+    }
+
+    @Benchmark
+    public void stringUrlDecoder(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(UrlDecoder.decode(value));
+        }
+    }
+
+    @Benchmark
+    public void byteUrlDecoder(Blackhole bh) {
+        for (int i = 0; i < valueStarts.length; i++) {
+            bh.consume(UrlDecoder.decode(buffer, valueStarts[i], valueLengths[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UrlDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
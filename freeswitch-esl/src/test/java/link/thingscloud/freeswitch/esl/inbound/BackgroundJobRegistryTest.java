@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound;
+
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.exception.InboundClientException;
+import link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventHeaderNames;
+import link.thingscloud.freeswitch.esl.transport.event.LazyEslEvent;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>BackgroundJobRegistryTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class BackgroundJobRegistryTest extends TestCase {
+
+    private static final String JOB_UUID = "7f4de4bc-17d7-11dd-b7a0-db4edd065621";
+
+    private final BackgroundJobRegistry registry = new BackgroundJobRegistry();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() {
+        registry.close();
+    }
+
+    /**
+     * <p>testComplete.</p>
+     */
+    public void testComplete() throws Exception {
+        CompletableFuture<EslEvent> future = registry.register("127.0.0.1:8021", JOB_UUID, 60000);
+        assertEquals(1, registry.size());
+
+        EslEvent event = new LazyEslEvent(EslSamples.decode(EslSamples.plainEventFrame(EslSamples.BACKGROUND_JOB), true));
+        assertTrue(registry.complete(event));
+        // released by the dispatcher, the future holds a copy
+        assertTrue(event.release());
+        EslEvent result = future.get();
+        assertNotSame(event, result);
+        assertEquals(JOB_UUID, result.getEventHeader(EslEventHeaderNames.JOB_UUID));
+        assertEquals(Collections.singletonList("+OK " + JOB_UUID), result.getEventBodyLines());
+        assertEquals(0, registry.size());
+
+        EslEvent unknown = backgroundJob();
+        assertFalse(registry.complete(unknown));
+        assertTrue(unknown.release());
+    }
+
+    /**
+     * <p>testExpire.</p>
+     */
+    public void testExpire() throws Exception {
+        CompletableFuture<EslEvent> future = registry.register("127.0.0.1:8021", JOB_UUID, 1);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof InboundTimeoutExcetion);
+        }
+        assertEquals(0, registry.size());
+        // the late event is left to the listeners
+        EslEvent event = backgroundJob();
+        assertFalse(registry.complete(event));
+        event.release();
+    }
+
+    /**
+     * <p>testFailAll.</p>
+     */
+    public void testFailAll() {
+        CompletableFuture<EslEvent> closed = registry.register("127.0.0.1:8021", JOB_UUID, 0);
+        CompletableFuture<EslEvent> other = registry.register("127.0.0.2:8021", "c0fb6c8b", 0);
+        assertTrue(registry.register("127.0.0.2:8021", "c0fb6c8b", 0).isCompletedExceptionally());
+
+        registry.failAll("127.0.0.1:8021");
+        assertTrue(closed.isCompletedExceptionally());
+        assertFalse(other.isDone());
+        registry.fail("c0fb6c8b", new InboundClientException("write failed"));
+        assertTrue(other.isCompletedExceptionally());
+        assertEquals(0, registry.size());
+    }
+
+    private static EslEvent backgroundJob() {
+        return new EslEvent(EslSamples.decode(EslSamples.plainEventFrame(EslSamples.BACKGROUND_JOB), false));
+    }
+}
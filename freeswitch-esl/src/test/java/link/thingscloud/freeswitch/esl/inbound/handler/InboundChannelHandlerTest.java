@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.exception.InboundClientException;
+import link.thingscloud.freeswitch.esl.exception.InboundTimeoutExcetion;
+import link.thingscloud.freeswitch.esl.inbound.listener.ChannelEventListener;
+import link.thingscloud.freeswitch.esl.inbound.option.CommandAdmission;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.SendMsg;
+import link.thingscloud.freeswitch.esl.transport.event.EslEvent;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommand;
+import link.thingscloud.freeswitch.esl.transport.message.EslCommandEncoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslHeaders;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <p>InboundChannelHandlerTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class InboundChannelHandlerTest extends TestCase {
+
+    /**
+     * <p>testPipelinedCommands.</p>
+     */
+    public void testPipelinedCommands() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+
+        List<CompletableFuture<EslMessage>> futures = handler.sendPipelinedCommands(Arrays.asList(
+                EslCommand.api("uuid_setvar", "3e6f1d84 campaign_id 42"),
+                EslCommand.of(new SendMsg("3e6f1d84").addCallCommand("hangup").getMsgLines()),
+                EslCommand.api("status", null)));
+        assertEquals(3, futures.size());
+        // all three commands went out before any reply
+        assertEquals("api uuid_setvar 3e6f1d84 campaign_id 42\n\nsendmsg 3e6f1d84\ncall-command: hangup\n\napi status\n\n",
+                readOutbound(channel));
+
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.apiResponseFrame("+OK")));
+        assertTrue(futures.get(0).isDone());
+        assertFalse(futures.get(1).isDone());
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(
+                EslSamples.commandReplyFrame("+OK"), EslSamples.apiResponseFrame("UP 0 years"))));
+        assertEquals(Collections.singletonList("+OK"), futures.get(0).get().getBodyLines());
+        assertEquals("+OK", futures.get(1).get().getHeaderValue(EslHeaders.Name.REPLY_TEXT));
+        assertEquals(Collections.singletonList("UP 0 years"), futures.get(2).get().getBodyLines());
+        assertTrue(handler.sendPipelinedCommands(Collections.emptyList()).isEmpty());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testNonBlockingCommands.</p>
+     */
+    public void testNonBlockingCommands() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+
+        CompletableFuture<EslMessage> status = handler.sendCommand(EslCommand.api("status", null), null);
+        CompletableFuture<String> jobUuid = handler.sendBackgroundCommand(EslCommand.bgapi("originate", "user/1000 &park"));
+        assertEquals("api status\n\nbgapi originate user/1000 &park\n\n", readOutbound(channel));
+        assertFalse(status.isDone());
+
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(EslSamples.apiResponseFrame("UP 0 years"),
+                "Content-Type: command/reply\nReply-Text: +OK Job-UUID: 7f4de4bc\nJob-UUID: 7f4de4bc\n\n".getBytes(StandardCharsets.UTF_8))));
+        // completed by the I/O thread, nobody waited
+        assertEquals(Collections.singletonList("UP 0 years"), status.getNow(null).getBodyLines());
+        assertEquals("7f4de4bc", jobUuid.getNow(null));
+
+        channel.close();
+        // a command to a closed channel fails its future instead of hanging
+        CompletableFuture<EslMessage> closed = handler.sendCommand(EslCommand.api("status", null), null);
+        assertTrue(closed.isCompletedExceptionally());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testReplyTooLong.</p>
+     */
+    public void testReplyTooLong() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192).maxBodySize(64), handler);
+
+        CompletableFuture<EslMessage> show = handler.sendCommand(EslCommand.api("show", "channels"), null);
+        CompletableFuture<EslMessage> status = handler.sendCommand(EslCommand.api("status", null), null);
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(
+                EslSamples.apiResponseFrame(String.join("\n", Collections.nCopies(10, "uuid,direction,created"))),
+                EslSamples.apiResponseFrame("UP 0 years"))));
+        // fails rather than returning empty body lines
+        assertRejected(show);
+        show.exceptionally(cause -> {
+            assertTrue(cause.getMessage().contains("maxBodySize"));
+            return null;
+        }).join();
+        assertEquals(Collections.singletonList("UP 0 years"), status.get().getBodyLines());
+        readOutbound(channel);
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testMalformedEventReleased.</p>
+     */
+    public void testMalformedEventReleased() {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        EslMessage message = EslSamples.decode(EslSamples.frame(EslHeaders.Value.TEXT_EVENT_JSON,
+                "{\"Event-Name\": \"CHANNEL_CREATE\", \"Unique-ID\"".getBytes(StandardCharsets.UTF_8)), true);
+        assertTrue(message.hasRawBody());
+        channel.writeInbound(message);
+        assertEquals(0, message.refCnt());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testLateReplyIsDiscarded.</p>
+     */
+    public void testLateReplyIsDiscarded() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+
+        CompletableFuture<EslMessage> slow = handler.sendCommand(EslCommand.api("show", "channels"), null, 1);
+        CompletableFuture<EslMessage> next = handler.sendCommand(EslCommand.api("status", null), null);
+        Thread.sleep(20);
+        channel.runScheduledPendingTasks();
+        try {
+            slow.getNow(null);
+            fail();
+        } catch (Exception expected) {
+            assertTrue(expected.getCause() instanceof InboundTimeoutExcetion);
+        }
+        assertFalse(next.isDone());
+
+        // the late reply keeps its place, the next reply still goes to the next command
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(
+                EslSamples.apiResponseFrame("uuid,direction"), EslSamples.apiResponseFrame("UP 0 years"))));
+        assertEquals(Collections.singletonList("UP 0 years"), next.get().getBodyLines());
+        readOutbound(channel);
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testLateReplyAfterFailedWrite.</p>
+     */
+    public void testLateReplyAfterFailedWrite() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new FailingWriteHandler("uuid_kill"),
+                new EslFrameDecoder(8192), handler);
+
+        CompletableFuture<EslMessage> slow = handler.sendCommand(EslCommand.api("show", "channels"), null, 1);
+        CompletableFuture<EslMessage> failed = handler.sendCommand(EslCommand.api("uuid_kill", "3e6f1d84"), null);
+        Thread.sleep(20);
+        channel.runScheduledPendingTasks();
+        assertTrue(slow.isCompletedExceptionally());
+        assertTrue(failed.isCompletedExceptionally());
+        CompletableFuture<EslMessage> next = handler.sendCommand(EslCommand.api("status", null), null);
+        assertEquals("api show channels\n\napi status\n\n", readOutbound(channel));
+
+        // only the late reply is discarded, the failed write has no reply to wait for
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(
+                EslSamples.apiResponseFrame("uuid,direction"), EslSamples.apiResponseFrame("UP 0 years"))));
+        assertTrue(next.isDone());
+        assertEquals(Collections.singletonList("UP 0 years"), next.get().getBodyLines());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testExpiredWhileQueued.</p>
+     */
+    public void testExpiredWhileQueued() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true)
+                .commandAdmission(CommandAdmission.QUEUE, 0, 2);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+
+        CompletableFuture<EslMessage> expired = handler.sendCommand(EslCommand.api("uuid_kill", "3e6f1d84"), null, 1);
+        CompletableFuture<EslMessage> status = handler.sendCommand(EslCommand.api("status", null), null);
+        Thread.sleep(20);
+        channel.runScheduledPendingTasks();
+        assertTrue(expired.isCompletedExceptionally());
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        channel.runPendingTasks();
+        // never sent, so no reply is waited for
+        assertEquals("api status\n\n", readOutbound(channel));
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.apiResponseFrame("UP 0 years")));
+        assertEquals(Collections.singletonList("UP 0 years"), status.get().getBodyLines());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testWriteFailedOnOpenChannel.</p>
+     */
+    public void testWriteFailedOnOpenChannel() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new FailingWriteHandler("uuid_kill"),
+                new EslFrameDecoder(8192), handler);
+
+        List<CompletableFuture<EslMessage>> futures = handler.sendPipelinedCommands(Arrays.asList(
+                EslCommand.api("uuid_kill", "3e6f1d84"), EslCommand.api("status", null)));
+        assertTrue(futures.get(0).isCompletedExceptionally());
+        assertTrue(channel.isActive());
+        assertEquals("api status\n\n", readOutbound(channel));
+
+        // the reply goes to the command that was sent
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.apiResponseFrame("UP 0 years")));
+        assertTrue(futures.get(1).isDone());
+        assertEquals(Collections.singletonList("UP 0 years"), futures.get(1).get().getBodyLines());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testQueuedWhileNotWritable.</p>
+     */
+    public void testQueuedWhileNotWritable() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true)
+                .commandAdmission(CommandAdmission.QUEUE, 0, 2);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+        assertTrue(handler.isWritable());
+        // a stalled server
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        assertFalse(handler.isWritable());
+
+        List<CompletableFuture<EslMessage>> futures = handler.sendPipelinedCommands(Arrays.asList(
+                EslCommand.api("uuid_kill", "3e6f1d84"), EslCommand.api("status", null)));
+        assertEquals(2, handler.queuedCommands());
+        assertEquals("", readOutbound(channel));
+        assertRejected(handler.sendPipelinedCommands(Collections.singletonList(EslCommand.api("status", null))).get(0));
+        assertEquals(2, handler.queuedCommands());
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        channel.runPendingTasks();
+        assertEquals(0, handler.queuedCommands());
+        assertEquals("api uuid_kill 3e6f1d84\n\napi status\n\n", readOutbound(channel));
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.concat(
+                EslSamples.apiResponseFrame("+OK"), EslSamples.apiResponseFrame("UP 0 years"))));
+        assertEquals(Collections.singletonList("+OK"), futures.get(0).get().getBodyLines());
+        assertEquals(Collections.singletonList("UP 0 years"), futures.get(1).get().getBodyLines());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testInterruptedWhileWaiting.</p>
+     */
+    public void testInterruptedWhileWaiting() {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+        Thread.currentThread().interrupt();
+        try {
+            handler.sendSyncCommand(EslCommand.api("status", null), null);
+            fail();
+        } catch (InboundClientException expected) {
+            assertTrue(expected.getCause() instanceof InterruptedException);
+            // the interrupt status is kept for the caller
+            assertTrue(Thread.interrupted());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testUnboundedByDefault.</p>
+     */
+    public void testUnboundedByDefault() throws Exception {
+        InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true);
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+
+        CompletableFuture<EslMessage> status = handler.sendCommand(EslCommand.api("status", null), null);
+        assertEquals(0, handler.queuedCommands());
+        assertEquals("api status\n\n", readOutbound(channel));
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.apiResponseFrame("UP 0 years")));
+        assertEquals(Collections.singletonList("UP 0 years"), status.get().getBodyLines());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * <p>testRejectedWhileNotWritable.</p>
+     */
+    public void testRejectedWhileNotWritable() {
+        for (CommandAdmission admission : new CommandAdmission[]{CommandAdmission.FAIL_FAST, CommandAdmission.BLOCK}) {
+            InboundChannelHandler handler = new InboundChannelHandler(new NoopListener(), null, true)
+                    .commandAdmission(admission, 1000, 2);
+            EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder(), new EslFrameDecoder(8192), handler);
+            channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+            // the I/O thread never waits, even with BLOCK
+            assertRejected(handler.sendPipelinedCommands(Collections.singletonList(EslCommand.api("status", null))).get(0));
+            assertEquals("", readOutbound(channel));
+            try {
+                handler.sendSyncCommand(EslCommand.api("status", null), null);
+                fail();
+            } catch (InboundClientException expected) {
+                assertEquals("", readOutbound(channel));
+            }
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static void assertRejected(CompletableFuture<EslMessage> future) {
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.join();
+            fail();
+        } catch (CompletionException expected) {
+            assertTrue(expected.getCause() instanceof InboundClientException);
+        }
+    }
+
+    private static String readOutbound(EmbeddedChannel channel) {
+        // the flush is queued behind the submitted commands
+        channel.runPendingTasks();
+        StringBuilder sb = new StringBuilder();
+        ByteBuf buffer;
+        while ((buffer = channel.readOutbound()) != null) {
+            sb.append(buffer.toString(StandardCharsets.UTF_8));
+            buffer.release();
+        }
+        return sb.toString();
+    }
+
+    /**
+     * fails the writes of the commands containing the text, before the encoder, the channel stays open
+     */
+    static class FailingWriteHandler extends ChannelOutboundHandlerAdapter {
+        private final String text;
+
+        FailingWriteHandler(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof EslCommand && msg.toString().contains(text)) {
+                promise.setFailure(new IllegalStateException("cannot write " + msg));
+            } else {
+                super.write(ctx, msg, promise);
+            }
+        }
+    }
+
+    static class NoopListener implements ChannelEventListener {
+        @Override
+        public void onChannelActive(String remoteAddr, InboundChannelHandler inboundChannelHandler) {
+        }
+
+        @Override
+        public void onChannelClosed(String remoteAddr) {
+        }
+
+        @Override
+        public void handleAuthRequest(String remoteAddr, InboundChannelHandler inboundChannelHandler) {
+        }
+
+        @Override
+        public void handleEslEvent(String remoteAddr, EslEvent event) {
+        }
+
+        @Override
+        public void handleDisconnectNotice(String remoteAddr) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.inbound.option;
+
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.inbound.NettyInboundClient;
+
+/**
+ * <p>InboundClientOptionTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class InboundClientOptionTest extends TestCase {
+
+    /**
+     * <p>testWriteBufferWaterMarks.</p>
+     */
+    public void testWriteBufferWaterMarks() {
+        // either order, as long as low <= high in the end
+        InboundClientOption option = new InboundClientOption().writeBufferLowWaterMark(128 * 1024)
+                .writeBufferHighWaterMark(256 * 1024);
+        assertEquals(128 * 1024, option.writeBufferLowWaterMark());
+        assertEquals(256 * 1024, option.writeBufferHighWaterMark());
+        try {
+            new InboundClientOption().writeBufferLowWaterMark(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("writeBufferLowWaterMark"));
+        }
+        try {
+            new InboundClientOption().writeBufferHighWaterMark(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("writeBufferHighWaterMark"));
+        }
+        try {
+            new NettyInboundClient(new InboundClientOption().writeBufferLowWaterMark(128 * 1024));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("131072"));
+            assertTrue(expected.getMessage().contains("65536"));
+        }
+    }
+}
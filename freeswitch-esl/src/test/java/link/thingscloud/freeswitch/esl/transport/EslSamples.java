@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+import link.thingscloud.freeswitch.esl.transport.util.UrlDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sample ESL frames shared by tests and benchmarks. The event bodies are kept under
+ * {@code src/test/resources/events} exactly as FreeSWITCH writes them for {@code event plain}.
+ *
+ * @author zhouhailin
+ */
+public class EslSamples {
+
+    /**
+     * {@code CHANNEL_CREATE} event body
+     */
+    public static final String CHANNEL_CREATE = "events/channel_create.txt";
+    /**
+     * {@code CHANNEL_HANGUP_COMPLETE} event body
+     */
+    public static final String CHANNEL_HANGUP_COMPLETE = "events/channel_hangup_complete.txt";
+    /**
+     * {@code BACKGROUND_JOB} event body, with the result of the job as its body
+     */
+    public static final String BACKGROUND_JOB = "events/background_job.txt";
+
+    private EslSamples() {
+    }
+
+    /**
+     * <p>eventBody.</p>
+     *
+     * @param resource a {@link java.lang.String} object.
+     * @return the raw event body bytes.
+     */
+    public static byte[] eventBody(String resource) {
+        try (InputStream in = EslSamples.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("not found resource : " + resource);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * <p>plainEventFrame.</p>
+     *
+     * @param resource a {@link java.lang.String} object.
+     * @return a complete {@code text/event-plain} frame.
+     */
+    public static byte[] plainEventFrame(String resource) {
+        return frame("text/event-plain", eventBody(resource));
+    }
+
+    /**
+     * <p>jsonEventFrame.</p>
+     *
+     * @param resource a {@link java.lang.String} object.
+     * @return a complete {@code text/event-json} frame with the same headers as the plain event.
+     */
+    public static byte[] jsonEventFrame(String resource) {
+        StringBuilder sb = new StringBuilder("{");
+        for (String line : new String(eventBody(resource), StandardCharsets.UTF_8).split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendJsonString(sb, line.substring(0, colon));
+            sb.append(':');
+            appendJsonString(sb, UrlDecoder.decode(line.substring(colon + 1).trim()));
+        }
+        sb.append('}');
+        return frame("text/event-json", sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>xmlEventFrame.</p>
+     *
+     * @param resource a {@link java.lang.String} object.
+     * @return a complete {@code text/event-xml} frame with the same headers as the plain event.
+     */
+    public static byte[] xmlEventFrame(String resource) {
+        StringBuilder sb = new StringBuilder("<event>\n  <headers>\n");
+        for (String line : new String(eventBody(resource), StandardCharsets.UTF_8).split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                String name = line.substring(0, colon);
+                // the values are URL encoded in both formats, so they never need escaping
+                sb.append("    <").append(name).append('>').append(line.substring(colon + 1).trim())
+                        .append("</").append(name).append(">\n");
+            }
+        }
+        sb.append("  </headers>\n</event>");
+        return frame("text/event-xml", sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>appendJsonString.</p>
+     *
+     * @param sb    a {@link java.lang.StringBuilder} object.
+     * @param value a {@link java.lang.String} object.
+     */
+    public static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch == '\n') {
+                sb.append("\\n");
+            } else if (ch < ' ') {
+                sb.append(String.format("\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * <p>apiResponseFrame.</p>
+     *
+     * @param body a {@link java.lang.String} object.
+     * @return a complete {@code api/response} frame.
+     */
+    public static byte[] apiResponseFrame(String body) {
+        return frame("api/response", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>commandReplyFrame.</p>
+     *
+     * @param replyText a {@link java.lang.String} object.
+     * @return a complete {@code command/reply} frame.
+     */
+    public static byte[] commandReplyFrame(String replyText) {
+        return ("Content-Type: command/reply\nReply-Text: " + replyText + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <p>frame.</p>
+     *
+     * @param contentType a {@link java.lang.String} object.
+     * @param body        an array of {@link byte} objects.
+     * @return a complete frame with a {@code Content-Length} header.
+     */
+    public static byte[] frame(String contentType, byte[] body) {
+        byte[] header = ("Content-Length: " + body.length + "\nContent-Type: " + contentType + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[header.length + body.length];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(body, 0, frame, header.length, body.length);
+        return frame;
+    }
+
+    /**
+     * <p>decode.</p>
+     *
+     * @param frame           a complete frame.
+     * @param retainEventBody see {@link EslFrameDecoder#retainEventBody(boolean)}.
+     * @return the decoded message.
+     */
+    public static EslMessage decode(byte[] frame, boolean retainEventBody) {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).retainEventBody(retainEventBody));
+        channel.writeInbound(Unpooled.wrappedBuffer(frame));
+        EslMessage message = channel.readInbound();
+        channel.finish();
+        return message;
+    }
+
+    /**
+     * <p>concat.</p>
+     *
+     * @param frames an array of {@link byte} objects.
+     * @return the frames written back to back, as they arrive on the wire.
+     */
+    public static byte[] concat(byte[]... frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <p>CompactHeaderMapTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class CompactHeaderMapTest extends TestCase {
+
+    /**
+     * <p>testSameAsHashMap.</p>
+     */
+    public void testSameAsHashMap() {
+        Map<String, String> expected = new HashMap<>();
+        Map<String, String> actual = new CompactHeaderMap(2);
+        Random random = new Random(7);
+        String[] names = EslEventHeaderNames.values();
+        for (int i = 0; i < 20000; i++) {
+            String name = random.nextBoolean() ? names[random.nextInt(names.length)] : "variable_" + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(name), actual.remove(name));
+            } else {
+                String value = random.nextInt(10) == 0 ? null : "value" + i;
+                assertEquals(expected.put(name, value), actual.put(name, value));
+            }
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.get(name), actual.get(name));
+            assertEquals(expected.containsKey(name), actual.containsKey(name));
+        }
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    /**
+     * <p>testIteratorRemove.</p>
+     */
+    public void testIteratorRemove() {
+        Map<String, String> headers = new CompactHeaderMap();
+        headers.put(EslEventHeaderNames.EVENT_NAME, "CHANNEL_CREATE");
+        headers.put("variable_uuid", "1");
+        headers.put("variable_direction", "inbound");
+        Iterator<Map.Entry<String, String>> iterator = headers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().getKey().equals("variable_uuid")) {
+                iterator.remove();
+            }
+        }
+        assertEquals(1, headers.size());
+        assertEquals("1", headers.get("variable_uuid"));
+        assertNull(headers.get(EslEventHeaderNames.EVENT_NAME));
+    }
+
+    /**
+     * <p>testEntrySetValue.</p>
+     */
+    public void testEntrySetValue() {
+        Map<String, String> headers = new CompactHeaderMap();
+        headers.put(EslEventHeaderNames.EVENT_NAME, "CHANNEL_CREATE");
+        headers.put("variable_uuid", "1");
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            assertEquals(headers.get(entry.getKey()), entry.setValue(entry.getKey().equals("variable_uuid") ? null : "CHANNEL_ANSWER"));
+        }
+        assertEquals(2, headers.size());
+        assertEquals("CHANNEL_ANSWER", headers.get(EslEventHeaderNames.EVENT_NAME));
+        assertTrue(headers.containsKey("variable_uuid"));
+        assertNull(headers.get("variable_uuid"));
+        Map<String, String> expected = new HashMap<>();
+        expected.put(EslEventHeaderNames.EVENT_NAME, "CHANNEL_ANSWER");
+        expected.put("variable_uuid", null);
+        assertEquals(expected, headers);
+        assertEquals(expected.entrySet(), headers.entrySet());
+        assertEquals(expected.hashCode(), headers.hashCode());
+    }
+
+    /**
+     * <p>testEventHeaders.</p>
+     */
+    public void testEventHeaders() {
+        EslEvent event = new EslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, false));
+        Map<String, String> headers = event.getEventHeaders();
+        assertTrue(headers instanceof CompactHeaderMap);
+        assertEquals(new HashMap<>(headers), headers);
+        assertEquals("CHANNEL_CREATE", headers.get(EslEventHeaderNames.EVENT_NAME));
+        assertEquals(new LazyEslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, true)).getEventHeaders(), headers);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessageCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>EslEventCodecTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslEventCodecTest extends TestCase {
+
+    /**
+     * <p>testRoundTrip.</p>
+     */
+    public void testRoundTrip() {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            for (boolean retainEventBody : new boolean[]{false, true}) {
+                EslEvent expected = retainEventBody
+                        ? new LazyEslEvent(EslEventTest.decode(resource, true)) : new EslEvent(EslEventTest.decode(resource, false));
+                EslEvent actual = roundTrip(expected);
+                assertEquals(expected.getMessageHeaders(), actual.getMessageHeaders());
+                assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+                assertEquals(expected.getEventBodyLines(), actual.getEventBodyLines());
+                assertEquals(expected.getChannelState(), actual.getChannelState());
+                assertEquals(expected.getEventDateTimestamp(), actual.getEventDateTimestamp());
+                // known names come back as the canonical instances
+                for (String name : actual.getEventHeaders().keySet()) {
+                    assertSame(HeaderNameTable.resolve(name), name);
+                }
+                expected.release();
+            }
+        }
+    }
+
+    /**
+     * <p>testRoundTripBody.</p>
+     */
+    public void testRoundTripBody() {
+        String body = "Event-Name: BACKGROUND_JOB\n"
+                + "Job-UUID: 7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d\n"
+                + "variable_caller: %E5%BC%A0%E4%B8%89\n"
+                + "Content-Length: 41\n"
+                + "\n"
+                + "+OK 3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10\n";
+        EslEvent expected = new EslEvent(EslEventTest.decode(
+                EslSamples.frame("text/event-plain", body.getBytes(StandardCharsets.UTF_8)), false));
+        EslEvent actual = roundTrip(expected);
+        assertEquals("\u5f20\u4e09", actual.getEventHeader("variable_caller"));
+        assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+        assertEquals(expected.getEventBodyLines(), actual.getEventBodyLines());
+    }
+
+    /**
+     * <p>testRoundTripNullValue.</p>
+     */
+    public void testRoundTripNullValue() {
+        EslEvent expected = new EslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, false));
+        expected.getEventHeaders().put("variable_unset", null);
+        expected.getEventHeaders().put(EslEventHeaderNames.HANGUP_CAUSE, null);
+        expected.getEventHeaders().put("variable_empty", "");
+        EslEvent actual = roundTrip(expected);
+        assertTrue(actual.getEventHeaders().containsKey("variable_unset"));
+        assertNull(actual.getEventHeader("variable_unset"));
+        assertTrue(actual.getEventHeaders().containsKey(EslEventHeaderNames.HANGUP_CAUSE));
+        assertNull(actual.getEventHeader(EslEventHeaderNames.HANGUP_CAUSE));
+        assertEquals("", actual.getEventHeader("variable_empty"));
+        assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+    }
+
+    /**
+     * <p>testSmallerThanText.</p>
+     */
+    public void testSmallerThanText() {
+        byte[] frame = EslSamples.plainEventFrame(EslSamples.CHANNEL_HANGUP_COMPLETE);
+        ByteBuf out = Unpooled.buffer();
+        EslEventCodec.encode(new EslEvent(EslEventTest.decode(EslSamples.CHANNEL_HANGUP_COMPLETE, false)), out);
+        assertTrue(out.readableBytes() < frame.length);
+    }
+
+    /**
+     * <p>testRejectsOtherInput.</p>
+     */
+    public void testRejectsOtherInput() {
+        ByteBuf out = Unpooled.buffer();
+        EslEventCodec.encode(new EslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, false)), out);
+        ByteBuf truncated = out.copy(0, out.readableBytes() - 3);
+        try {
+            EslEventCodec.decode(truncated);
+            fail();
+        } catch (EslDecoderException expected) {
+            // expected
+        }
+        out.setByte(0, EslMessageCodec.VERSION + 1);
+        try {
+            EslEventCodec.decode(out);
+            fail();
+        } catch (EslDecoderException expected) {
+            // expected
+        }
+        try {
+            EslMessageCodec.decode(Unpooled.wrappedBuffer(new byte[]{EslMessageCodec.VERSION, EslMessageCodec.KIND_EVENT}));
+            fail();
+        } catch (EslDecoderException expected) {
+            // expected
+        }
+    }
+
+    private static EslEvent roundTrip(EslEvent event) {
+        ByteBuf out = Unpooled.buffer();
+        EslEventCodec.encode(event, out);
+        EslEvent decoded = EslEventCodec.decode(out);
+        assertFalse(out.isReadable());
+        return decoded;
+    }
+}
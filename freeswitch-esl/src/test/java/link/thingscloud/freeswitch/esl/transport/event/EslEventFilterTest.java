@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>EslEventFilterTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslEventFilterTest extends TestCase {
+
+    private static final ByteBuf CHANNEL_CREATE = Unpooled.wrappedBuffer(EslSamples.eventBody(EslSamples.CHANNEL_CREATE));
+    private static final ByteBuf SOFIA_REGISTER = Unpooled.wrappedBuffer(("Event-Name: CUSTOM\n"
+            + "Core-UUID: 2bd6f46c-2a9b-4a8b-9f2f-b2f2c0a3b5a1\n"
+            + "Event-Subclass: sofia%3A%3Aregister\n"
+            + "Event-Date-Timestamp: 1591236781902311\n\n").getBytes(StandardCharsets.UTF_8));
+    private static final ByteBuf BACKGROUND_JOB = Unpooled.wrappedBuffer(("Event-Name: BACKGROUND_JOB\n"
+            + "Job-UUID: 7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d\n"
+            + "Content-Length: 4\n\n+OK\n").getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * <p>testEmpty.</p>
+     */
+    public void testEmpty() {
+        EslEventFilter filter = new EslEventFilter();
+        assertTrue(filter.isEmpty());
+        assertTrue(accept(filter, CHANNEL_CREATE));
+        assertTrue(accept(filter, SOFIA_REGISTER));
+    }
+
+    /**
+     * <p>testEventNames.</p>
+     */
+    public void testEventNames() {
+        EslEventFilter filter = new EslEventFilter().allowEvents("CHANNEL_HANGUP_COMPLETE", "CUSTOM");
+        assertFalse(accept(filter, CHANNEL_CREATE));
+        assertTrue(accept(filter, SOFIA_REGISTER));
+        assertTrue(accept(filter, BACKGROUND_JOB));
+        filter.clear().denyEvents("CHANNEL_CREATE", "BACKGROUND_JOB");
+        assertFalse(accept(filter, CHANNEL_CREATE));
+        assertTrue(accept(filter, SOFIA_REGISTER));
+        assertTrue(accept(filter, BACKGROUND_JOB));
+        assertFalse(filter.accept("CHANNEL_CREATE", null));
+        assertTrue(filter.accept("CHANNEL_ANSWER", null));
+    }
+
+    /**
+     * <p>testSubclasses.</p>
+     */
+    public void testSubclasses() {
+        EslEventFilter filter = new EslEventFilter().denySubclasses("sofia::register");
+        assertFalse(accept(filter, SOFIA_REGISTER));
+        assertTrue(accept(filter, CHANNEL_CREATE));
+        assertFalse(filter.accept("CUSTOM", "sofia::register"));
+        filter.clear().allowSubclasses("sofia::unregister");
+        assertFalse(accept(filter, SOFIA_REGISTER));
+        assertTrue(filter.accept("CUSTOM", "sofia::unregister"));
+        filter.allowSubclasses("sofia::register");
+        assertTrue(accept(filter, SOFIA_REGISTER));
+    }
+
+    private static boolean accept(EslEventFilter filter, ByteBuf body) {
+        return filter.accept(body, body.readerIndex(), body.readableBytes());
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.IllegalReferenceCountException;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.exception.EslDecoderException;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.message.EslFrameDecoder;
+import link.thingscloud.freeswitch.esl.transport.message.EslMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>EslEventTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslEventTest extends TestCase {
+
+    /**
+     * <p>testPlainEvent.</p>
+     */
+    public void testPlainEvent() {
+        EslEvent event = new EslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, false));
+        assertEquals("CHANNEL_HANGUP_COMPLETE", event.getEventName());
+        assertEquals(1591236781902311L, event.getEventDateTimestamp());
+        assertEquals("2020-06-04 10:13:01", event.getEventDateLocal());
+        assertEquals("sip:200", event.getEventHeaders().get("variable_proto_specific_hangup_cause"));
+        assertEquals("\"Extension 1001\" <sip:1001@10.20.1.17>;tag=1f2e3d4c", event.getEventHeaders().get("variable_sip_full_from"));
+        assertFalse(event.hasEventBody());
+    }
+
+    /**
+     * <p>testRetainedEventMatchesDecodedEvent.</p>
+     */
+    public void testRetainedEventMatchesDecodedEvent() {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            EslEvent expected = new EslEvent(decode(resource, false));
+            EslEvent actual = new EslEvent(decode(resource, true));
+            assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+            assertEquals(expected.getEventBodyLines(), actual.getEventBodyLines());
+            assertTrue(actual.release());
+        }
+    }
+
+    /**
+     * <p>testRetainedEventIsReleased.</p>
+     */
+    public void testRetainedEventIsReleased() {
+        EslMessage message = decode(EslSamples.CHANNEL_CREATE, true);
+        EslEvent event = new EslEvent(message).retain();
+        assertFalse(event.release());
+        assertTrue(event.release());
+        assertEquals(0, message.getRawBody().refCnt());
+        try {
+            event.getEventHeaders();
+            fail("expected IllegalReferenceCountException");
+        } catch (IllegalReferenceCountException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * <p>testLazyEvent.</p>
+     */
+    public void testLazyEvent() {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            EslEvent expected = new EslEvent(decode(resource, false));
+            LazyEslEvent actual = new LazyEslEvent(decode(resource, true));
+            assertEquals(expected.getEventName(), actual.getEventName());
+            assertEquals("3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10", actual.getEventHeader("Unique-ID"));
+            assertEquals(expected.getEventHeader("variable_sip_full_via"), actual.getEventHeader("variable_sip_full_via"));
+            assertEquals(expected.getEventHeader("Caller-Caller-ID-Name"), actual.getEventHeader("Caller-Caller-ID-Name"));
+            assertNull(actual.getEventHeader("Not-A-Header"));
+            assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+            assertEquals(expected.getEventBodyLines(), actual.getEventBodyLines());
+            assertTrue(actual.release());
+        }
+    }
+
+    /**
+     * <p>testLazyEventBody.</p>
+     */
+    public void testLazyEventBody() {
+        String body = "Event-Name: BACKGROUND_JOB\n"
+                + "Job-UUID: 7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d\n"
+                + "Job-Command: originate\n"
+                + "Content-Length: 41\n"
+                + "\n"
+                + "+OK 3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10\n";
+        byte[] frame = EslSamples.frame("text/event-plain", body.getBytes(StandardCharsets.UTF_8));
+        EslEvent expected = new EslEvent(decode(frame, false));
+        LazyEslEvent actual = new LazyEslEvent(decode(frame, true));
+        assertEquals("7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d", actual.getEventHeader(EslEventHeaderNames.JOB_UUID));
+        assertEquals(Collections.singletonList("+OK 3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10"), actual.getEventBodyLines());
+        assertEquals(expected.getEventBodyLines(), actual.getEventBodyLines());
+        assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+        assertTrue(actual.hasEventBody());
+        assertTrue(actual.release());
+    }
+
+    /**
+     * <p>testJsonEvent.</p>
+     */
+    public void testJsonEvent() {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            EslEvent expected = new EslEvent(decode(resource, false));
+            for (boolean retainEventBody : new boolean[]{false, true}) {
+                EslEvent actual = new EslEvent(decode(EslSamples.jsonEventFrame(resource), retainEventBody));
+                assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+                assertEquals(expected.getEventName(), actual.getEventName());
+                assertFalse(actual.hasEventBody());
+                actual.release();
+            }
+        }
+    }
+
+    /**
+     * <p>testJsonEventValues.</p>
+     */
+    public void testJsonEventValues() {
+        String json = "{ \"Event-Name\" : \"BACKGROUND_JOB\", \"Job-UUID\":\"7f4db0f2\",\n"
+                + "\"variable_quote\":\"say \\\"hi\\\" \\u4f60\\/\\\\\", \"variable_list\":[\"a\",\"b\"],"
+                + "\"variable_number\":42, \"variable_null\":null, \"variable_object\":{\"k\":[1,\"}\"]},"
+                + "\"Content-Length\":\"25\", \"_body\":\"+OK Job done\\n\\nsecond line\\n\"}";
+        EslEvent event = new EslEvent(decode(EslSamples.frame("text/event-json", json.getBytes(StandardCharsets.UTF_8)), false));
+        assertEquals("BACKGROUND_JOB", event.getEventName());
+        assertEquals("say \"hi\" \u4f60/\\", event.getEventHeader("variable_quote"));
+        assertEquals("ARRAY::a|:b", event.getEventHeader("variable_list"));
+        assertEquals("42", event.getEventHeader("variable_number"));
+        assertFalse(event.getEventHeaders().containsKey("variable_null"));
+        assertEquals("{\"k\":[1,\"}\"]}", event.getEventHeader("variable_object"));
+        assertNull(event.getEventHeader("_body"));
+        assertEquals(Arrays.asList("+OK Job done", "second line"), event.getEventBodyLines());
+    }
+
+    /**
+     * <p>testXmlEvent.</p>
+     */
+    public void testXmlEvent() {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            EslEvent expected = new EslEvent(decode(resource, false));
+            for (boolean retainEventBody : new boolean[]{false, true}) {
+                EslEvent actual = new EslEvent(decode(EslSamples.xmlEventFrame(resource), retainEventBody));
+                assertEquals(expected.getEventHeaders(), actual.getEventHeaders());
+                assertFalse(actual.hasEventBody());
+                actual.release();
+            }
+        }
+    }
+
+    /**
+     * <p>testXmlEventValues.</p>
+     */
+    public void testXmlEventValues() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<event>\n  <headers>\n"
+                + "    <Event-Name>BACKGROUND_JOB</Event-Name>\n"
+                + "    <variable_encoded>sofia%2Finternal%2F1000%40example.com</variable_encoded>\n"
+                + "    <variable_list>a</variable_list>\n    <variable_list>b</variable_list>\n"
+                + "    <variable_channel><leg>A</leg><leg>B</leg></variable_channel>\n"
+                + "  </headers>\n  <Content-Length>25</Content-Length>\n"
+                + "  <body><![CDATA[+OK Job <done>\n\nsecond line\n]]></body>\n</event>";
+        EslEvent event = new EslEvent(decode(EslSamples.frame("text/event-xml", xml.getBytes(StandardCharsets.UTF_8)), false));
+        assertEquals("BACKGROUND_JOB", event.getEventName());
+        assertEquals("sofia/internal/1000@example.com", event.getEventHeader("variable_encoded"));
+        assertEquals("ARRAY::a|:b", event.getEventHeader("variable_list"));
+        assertEquals("AB", event.getEventHeader("variable_channel"));
+        assertEquals("25", event.getEventHeader(EslEventHeaderNames.CONTENT_LENGTH));
+        assertEquals(Arrays.asList("+OK Job <done>", "second line"), event.getEventBodyLines());
+    }
+
+    /**
+     * <p>testXmlEventExternalEntity.</p>
+     */
+    public void testXmlEventExternalEntity() {
+        String xml = "<?xml version=\"1.0\"?>\n<!DOCTYPE event [<!ENTITY secret SYSTEM \"file:///etc/hostname\">]>\n"
+                + "<event><headers><Event-Name>&secret;</Event-Name></headers></event>";
+        try {
+            EslEvent event = new EslEvent(decode(EslSamples.frame("text/event-xml", xml.getBytes(StandardCharsets.UTF_8)), false));
+            assertEquals("", event.getEventName());
+        } catch (EslDecoderException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * <p>testHotHeaders.</p>
+     */
+    public void testHotHeaders() {
+        UUID uuid = UUID.fromString("3e6f1d84-2b7c-4f0a-9d55-7a1c9e2b6f10");
+        EslEvent[] events = {
+                new EslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, false)),
+                new LazyEslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, true)),
+                new EslEvent(decode(EslSamples.jsonEventFrame(EslSamples.CHANNEL_HANGUP_COMPLETE), false)),
+                new EslEvent(decode(EslSamples.xmlEventFrame(EslSamples.CHANNEL_HANGUP_COMPLETE), false))
+        };
+        for (EslEvent event : events) {
+            assertEquals(uuid.toString(), event.getUniqueId());
+            assertEquals(uuid, event.getUniqueUuid());
+            assertSame(event.getUniqueUuid(), event.getUniqueUuid());
+            assertEquals(uuid.toString(), event.getChannelCallUuid());
+            assertEquals(ChannelState.CS_REPORTING, event.getChannelState());
+            assertEquals("hangup", event.getAnswerState());
+            assertEquals("1001", event.getCallerIdNumber());
+            assertEquals("9196", event.getCallerDestinationNumber());
+            assertEquals("NORMAL_CLEARING", event.getHangupCause());
+            assertEquals(1591236781902311L, event.getEventDateTimestamp());
+            assertEquals(event.getEventHeader(EslEventHeaderNames.HANGUP_CAUSE), event.getHangupCause());
+        }
+
+        EslEvent create = new LazyEslEvent(decode(EslSamples.CHANNEL_CREATE, true));
+        assertEquals(ChannelState.CS_INIT, create.getChannelState());
+        assertNull(create.getHangupCause());
+        assertNull(ChannelState.fromLiteral("CS_UNKNOWN"));
+    }
+
+    /**
+     * <p>testHotHeadersAfterChange.</p>
+     */
+    public void testHotHeadersAfterChange() {
+        UUID other = UUID.fromString("7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d");
+        EslEvent[] events = {
+                new EslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, false)),
+                new LazyEslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, true))
+        };
+        for (EslEvent event : events) {
+            // read into the slot table and the typed values first
+            assertEquals(ChannelState.CS_REPORTING, event.getChannelState());
+            assertNotNull(event.getUniqueUuid());
+            assertEquals(1591236781902311L, event.getEventDateTimestamp());
+            assertEquals("CHANNEL_HANGUP_COMPLETE", event.getEventName());
+
+            Map<String, String> headers = event.getEventHeaders();
+            headers.put(EslEventHeaderNames.UNIQUE_ID, other.toString());
+            headers.put(EslEventHeaderNames.CHANNEL_STATE, "CS_DESTROY");
+            headers.put(EslEventHeaderNames.EVENT_DATE_TIMESTAMP, "1591236781902312");
+            headers.put(EslEventHeaderNames.EVENT_NAME, "CHANNEL_DESTROY");
+            assertEquals(other.toString(), event.getUniqueId());
+            assertEquals(other, event.getUniqueUuid());
+            assertEquals(ChannelState.CS_DESTROY, event.getChannelState());
+            assertEquals(1591236781902312L, event.getEventDateTimestamp());
+            assertEquals("CHANNEL_DESTROY", event.getEventName());
+
+            headers.remove(EslEventHeaderNames.HANGUP_CAUSE);
+            assertNull(event.getHangupCause());
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey().equals(EslEventHeaderNames.CALLER_CALLER_ID_NUMBER)) {
+                    header.setValue("1002");
+                }
+            }
+            assertEquals("1002", event.getCallerIdNumber());
+        }
+    }
+
+    /**
+     * <p>testPooledEventIsRecycled.</p>
+     */
+    public void testPooledEventIsRecycled() {
+        EslEvent expected = new EslEvent(decode(EslSamples.CHANNEL_HANGUP_COMPLETE, false));
+
+        EslMessage message = decodePooled(EslSamples.CHANNEL_CREATE);
+        LazyEslEvent event = LazyEslEvent.newInstance(message);
+        assertEquals("CHANNEL_CREATE", event.getEventName());
+        assertEquals(ChannelState.CS_INIT, event.getChannelState());
+        assertNull(event.getHangupCause());
+        assertFalse(event.getEventHeaders().isEmpty());
+        assertTrue(event.release());
+        assertTrue(message.getHeaders().isEmpty());
+        assertFalse(message.hasRawBody());
+
+        // same thread, so the released instances come straight back out of the pool
+        EslMessage nextMessage = decodePooled(EslSamples.CHANNEL_HANGUP_COMPLETE);
+        LazyEslEvent nextEvent = LazyEslEvent.newInstance(nextMessage);
+        assertSame(message, nextMessage);
+        assertSame(event, nextEvent);
+        assertEquals(expected.getEventName(), nextEvent.getEventName());
+        assertEquals(expected.getEventHeaders(), nextEvent.getEventHeaders());
+        assertEquals(expected.getEventBodyLines(), nextEvent.getEventBodyLines());
+        assertEquals(ChannelState.CS_REPORTING, nextEvent.getChannelState());
+        assertEquals("NORMAL_CLEARING", nextEvent.getHangupCause());
+        assertTrue(nextEvent.release());
+    }
+
+    static EslMessage decodePooled(String resource) {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).retainEventBody(true).pooled(true));
+        channel.writeInbound(Unpooled.wrappedBuffer(EslSamples.plainEventFrame(resource)));
+        EslMessage message = channel.readInbound();
+        channel.finish();
+        return message;
+    }
+
+    static EslMessage decode(String resource, boolean retainEventBody) {
+        return decode(EslSamples.plainEventFrame(resource), retainEventBody);
+    }
+
+    static EslMessage decode(byte[] frame, boolean retainEventBody) {
+        return EslSamples.decode(frame, retainEventBody);
+    }
+}
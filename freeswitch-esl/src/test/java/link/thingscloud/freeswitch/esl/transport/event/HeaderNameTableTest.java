@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.event;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * <p>HeaderNameTableTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class HeaderNameTableTest extends TestCase {
+
+    /**
+     * <p>testSeededNames.</p>
+     */
+    public void testSeededNames() {
+        assertSame(EslEventHeaderNames.EVENT_NAME, HeaderNameTable.resolve(new String("Event-Name")));
+        assertSame(EslEventHeaderNames.UNIQUE_ID, HeaderNameTable.resolve(buffer("Unique-ID"), 0, 9));
+    }
+
+    /**
+     * <p>testLearnedNames.</p>
+     */
+    public void testLearnedNames() {
+        String name = HeaderNameTable.resolve(buffer("xvariable_test_learned_name"), 1, 26);
+        assertEquals("variable_test_learned_name", name);
+        assertSame(name, HeaderNameTable.resolve(buffer("variable_test_learned_name"), 0, 26));
+        assertSame(name, HeaderNameTable.resolve(new String("variable_test_learned_name")));
+    }
+
+    /**
+     * <p>testNonAsciiNames.</p>
+     */
+    public void testNonAsciiNames() {
+        String name = "variable_\u4f60\u597d";
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        assertEquals(name, HeaderNameTable.resolve(buffer, 0, bytes.length));
+        assertSame(name, HeaderNameTable.resolve(name));
+    }
+
+    /**
+     * <p>testEventsShareHeaderNames.</p>
+     */
+    public void testEventsShareHeaderNames() {
+        EslEvent first = new EslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, false));
+        EslEvent second = new LazyEslEvent(EslEventTest.decode(EslSamples.CHANNEL_CREATE, true));
+        Map<String, String> names = new IdentityHashMap<>();
+        for (String name : first.getEventHeaders().keySet()) {
+            names.put(name, name);
+        }
+        for (String name : second.getEventHeaders().keySet()) {
+            assertTrue(name, names.containsKey(name));
+        }
+        second.release();
+    }
+
+    private static ByteBuf buffer(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
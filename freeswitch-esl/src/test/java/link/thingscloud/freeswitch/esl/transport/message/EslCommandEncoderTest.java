@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.SendMsg;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>EslCommandEncoderTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslCommandEncoderTest extends TestCase {
+
+    /**
+     * <p>testSingleLine.</p>
+     */
+    public void testSingleLine() {
+        assertEquals("api status\n\n", encode(EslCommand.api("status", null)));
+        assertEquals("api uuid_kill 3e6f1d84 NORMAL_CLEARING\n\n", encode(EslCommand.api("uuid_kill", "3e6f1d84 NORMAL_CLEARING")));
+        assertEquals("bgapi originate user/1000 &park\n\n", encode(EslCommand.bgapi("originate", "user/1000 &park")));
+        assertEquals(" arg\n\n", encode(EslCommand.api("", "arg")));
+        assertEquals("noevents\n\n", encode(EslCommand.of("noevents")));
+        assertEquals("api uuid_setvar 1 caller \u5f20\u4e09\n\n", encode(EslCommand.api("uuid_setvar", "1 caller \u5f20\u4e09")));
+        assertEquals("auth ClueCon\n\n", encode("auth ClueCon\n\n"));
+    }
+
+    /**
+     * <p>testMultiLine.</p>
+     */
+    public void testMultiLine() {
+        SendMsg sendMsg = new SendMsg("3e6f1d84").addCallCommand("execute").addExecuteAppName("playback")
+                .addExecuteAppArg("/tmp/\u5f20\u4e09.wav");
+        assertEquals("sendmsg 3e6f1d84\ncall-command: execute\nexecute-app-name: playback\nexecute-app-arg: /tmp/\u5f20\u4e09.wav\n\n",
+                encode(EslCommand.of(sendMsg.getMsgLines())));
+    }
+
+    /**
+     * <p>testJobUuid.</p>
+     */
+    public void testJobUuid() {
+        EslCommand command = EslCommand.bgapi("originate", "user/1000 &park", "7f4de4bc");
+        assertEquals("bgapi originate user/1000 &park\nJob-UUID: 7f4de4bc\n\n", encode(command));
+        assertEquals("bgapi originate user/1000 &park\nJob-UUID: 7f4de4bc", command.toString());
+        assertEquals("bgapi status\nJob-UUID: 7f4de4bc\n\n", encode(EslCommand.bgapi("status", "", "7f4de4bc")));
+        for (String[] args : new String[][]{{null, "7f4de4bc"}, {"", "7f4de4bc"}, {"status", null}, {"status", ""}}) {
+            try {
+                EslCommand.bgapi(args[0], null, args[1]);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * <p>testTemplate.</p>
+     */
+    public void testTemplate() {
+        CommandTemplate setvar = CommandTemplate.of("uuid_setvar %s %s %s");
+        assertEquals(3, setvar.argCount());
+        assertEquals("api uuid_setvar 3e6f1d84 caller \u5f20\u4e09\n\n", encode(EslCommand.api(setvar, "3e6f1d84", "caller", "\u5f20\u4e09")));
+        assertEquals("bgapi uuid_setvar 1 2 3\n\n", encode(EslCommand.bgapi(setvar, "1", "2", "3")));
+        assertEquals("api uuid_setvar 1 2 3", EslCommand.api(setvar, "1", "2", "3").toString());
+        assertEquals("api status 100%\n\n", encode(EslCommand.api(CommandTemplate.of("status 100%%"))));
+
+        CommandTemplate playback = new SendMsg("%s").addCallCommand("execute").addExecuteAppName("playback")
+                .addExecuteAppArg("%s").toTemplate();
+        SendMsg sendMsg = new SendMsg("3e6f1d84").addCallCommand("execute").addExecuteAppName("playback")
+                .addExecuteAppArg("/tmp/welcome.wav");
+        assertEquals(encode(EslCommand.of(sendMsg.getMsgLines())), encode(playback.with("3e6f1d84", "/tmp/welcome.wav")));
+    }
+
+    /**
+     * <p>testTemplateArgs.</p>
+     */
+    public void testTemplateArgs() {
+        CommandTemplate kill = CommandTemplate.of("uuid_kill %s");
+        try {
+            kill.with();
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("uuid_kill %s"));
+        }
+        try {
+            EslCommand.api(kill, (String) null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("uuid_kill %s"));
+        }
+        try {
+            CommandTemplate.of("uuid_kill %d");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("uuid_kill %d"));
+        }
+    }
+
+    /**
+     * <p>testLengthOfAsciiCommand.</p>
+     */
+    public void testLengthOfAsciiCommand() {
+        EslCommand command = EslCommand.api("uuid_kill", "3e6f1d84");
+        assertEquals(encode(command).length(), command.length());
+        command = EslCommand.of(new SendMsg("3e6f1d84").addCallCommand("hangup").getMsgLines());
+        assertEquals(encode(command).length(), command.length());
+        command = EslCommand.api(CommandTemplate.of("uuid_kill %s"), "3e6f1d84");
+        assertEquals(encode(command).length(), command.length());
+        command = EslCommand.bgapi("uuid_kill", "3e6f1d84", "7f4de4bc");
+        assertEquals(encode(command).length(), command.length());
+    }
+
+    private static String encode(Object command) {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslCommandEncoder());
+        assertTrue(channel.writeOutbound(command));
+        ByteBuf buffer = channel.readOutbound();
+        String encoded = buffer.toString(StandardCharsets.UTF_8);
+        buffer.release();
+        assertFalse(channel.finish());
+        return encoded;
+    }
+}
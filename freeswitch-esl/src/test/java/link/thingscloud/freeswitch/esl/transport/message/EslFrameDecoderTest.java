@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+import link.thingscloud.freeswitch.esl.transport.event.EslEventFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>EslFrameDecoderTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslFrameDecoderTest extends TestCase {
+
+    private static final byte[] STREAM = EslSamples.concat(
+            "Content-Type: auth/request\n\n".getBytes(StandardCharsets.UTF_8),
+            EslSamples.commandReplyFrame("+OK accepted"),
+            EslSamples.plainEventFrame(EslSamples.CHANNEL_CREATE),
+            EslSamples.apiResponseFrame("line one\n\nline three\n"),
+            EslSamples.plainEventFrame(EslSamples.CHANNEL_HANGUP_COMPLETE),
+            EslSamples.commandReplyFrame("+OK Job-UUID: 7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d"));
+
+    /**
+     * <p>testDecodeWholeStream.</p>
+     */
+    public void testDecodeWholeStream() {
+        assertSameMessages(decode(new ReplayingEslFrameDecoder(8192), STREAM.length),
+                decode(new EslFrameDecoder(8192), STREAM.length));
+    }
+
+    /**
+     * <p>testDecodeFragmentedStream.</p>
+     */
+    public void testDecodeFragmentedStream() {
+        List<EslMessage> expected = decode(new ReplayingEslFrameDecoder(8192), STREAM.length);
+        for (int chunkSize : new int[]{1, 7, 64, 1460}) {
+            assertSameMessages(expected, decode(new EslFrameDecoder(8192), chunkSize));
+        }
+    }
+
+    /**
+     * <p>testDecodeEvent.</p>
+     */
+    public void testDecodeEvent() {
+        List<EslMessage> messages = decode(new EslFrameDecoder(8192), 100);
+        assertEquals(6, messages.size());
+        EslMessage event = messages.get(2);
+        assertEquals(EslHeaders.Value.TEXT_EVENT_PLAIN, event.getContentType());
+        assertEquals("Event-Name: CHANNEL_CREATE", event.getBodyLines().get(0));
+        assertEquals("", event.getBodyLines().get(event.getBodyLines().size() - 1));
+        assertEquals("+OK Job-UUID: 7f4db0f2-b848-4f3b-8a4e-2d3f4a5b6c7d", messages.get(5).getHeaderValue(EslHeaders.Name.REPLY_TEXT));
+    }
+
+    /**
+     * <p>testPooledEventsOnly.</p>
+     */
+    public void testPooledEventsOnly() {
+        List<EslMessage> expected = decode(new EslFrameDecoder(8192), STREAM.length);
+        List<EslMessage> messages = decode(new EslFrameDecoder(8192).pooled(true), 7);
+        assertSameMessages(expected, messages);
+        for (EslMessage message : messages) {
+            String contentType = message.getContentType();
+            assertTrue(message.release());
+            // a released pooled message is cleared on its way back to the pool
+            assertEquals(contentType.startsWith("text/event-"), message.getHeaders().isEmpty());
+        }
+    }
+
+    /**
+     * <p>testRetainEventBody.</p>
+     */
+    public void testRetainEventBody() {
+        List<EslMessage> expected = decode(new EslFrameDecoder(8192), STREAM.length);
+        List<EslMessage> actual = decode(new EslFrameDecoder(8192).retainEventBody(true), 1460);
+        EslMessage event = actual.get(2);
+        assertTrue(event.hasRawBody());
+        assertFalse(actual.get(3).hasRawBody());
+        assertSameMessages(expected, actual);
+        assertTrue(event.release());
+        assertEquals(0, event.getRawBody().refCnt());
+        assertTrue(actual.get(4).release());
+    }
+
+    /**
+     * <p>testEventFilter.</p>
+     */
+    public void testEventFilter() {
+        EslEventFilter filter = new EslEventFilter().denyEvents("CHANNEL_CREATE");
+        for (int chunkSize : new int[]{1, 64, STREAM.length}) {
+            List<EslMessage> messages = decode(new EslFrameDecoder(8192).eventFilter(filter), chunkSize);
+            assertEquals(5, messages.size());
+            assertEquals(EslHeaders.Value.API_RESPONSE, messages.get(2).getContentType());
+            assertEquals("Event-Name: CHANNEL_HANGUP_COMPLETE", messages.get(3).getBodyLines().get(0));
+        }
+    }
+
+    /**
+     * <p>testHeaderLineTooLong.</p>
+     */
+    public void testHeaderLineTooLong() {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(16));
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer("Content-Type: api/res".getBytes(StandardCharsets.UTF_8)));
+            fail("expected TooLongFrameException");
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * <p>testChunkedApiResponse.</p>
+     */
+    public void testChunkedApiResponse() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            body.append("uuid-").append(i).append(",2020-06-01 10:00:00,sofia/internal/100").append(i).append('\n');
+            if (i == 250) {
+                // a line longer than the chunk size in the middle of the body
+                body.append(String.join("", Collections.nCopies(700, "y"))).append('\n');
+            }
+        }
+        // and at the end of the body
+        for (int i = 0; i < 300; i++) {
+            body.append('x');
+        }
+        byte[] frame = EslSamples.concat(EslSamples.apiResponseFrame(body.toString()), EslSamples.commandReplyFrame("+OK"));
+        List<String> expected = EslSamples.decode(frame, false).getBodyLines();
+        for (int readSize : new int[]{1, 100, 1460, frame.length}) {
+            EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).apiResponseChunkSize(256));
+            for (int i = 0; i < frame.length; i += readSize) {
+                channel.writeInbound(Unpooled.wrappedBuffer(frame, i, Math.min(readSize, frame.length - i)));
+            }
+            EslMessage headers = channel.readInbound();
+            assertTrue(headers.isChunked());
+            assertTrue(headers.getBodyLines().isEmpty());
+            List<String> lines = new ArrayList<>();
+            for (Object msg = channel.readInbound(); msg instanceof EslBodyChunk; msg = channel.readInbound()) {
+                EslBodyChunk chunk = (EslBodyChunk) msg;
+                chunk.appendTo(headers);
+                lines.addAll(chunk.getLines());
+                if (chunk.isLast()) {
+                    break;
+                }
+            }
+            assertEquals(lines, headers.getBodyLines());
+            // the long lines are never split over chunks
+            assertEquals(expected, lines);
+            assertEquals("+OK", ((EslMessage) channel.readInbound()).getHeaderValue(EslHeaders.Name.REPLY_TEXT));
+            assertFalse(channel.finish());
+        }
+    }
+
+    /**
+     * <p>testBodyTooLong.</p>
+     */
+    public void testBodyTooLong() {
+        EmbeddedChannel channel = new EmbeddedChannel(new EslFrameDecoder(8192).maxBodySize(64));
+        byte[] frame = EslSamples.concat(EslSamples.apiResponseFrame(String.join("\n", Collections.nCopies(10, "line of the response"))),
+                EslSamples.plainEventFrame(EslSamples.CHANNEL_CREATE), EslSamples.commandReplyFrame("+OK"));
+        int tooLong = 0;
+        for (int i = 0; i < frame.length; i += 100) {
+            try {
+                channel.writeInbound(Unpooled.wrappedBuffer(frame, i, Math.min(100, frame.length - i)));
+            } catch (TooLongFrameException expected) {
+                tooLong++;
+            }
+        }
+        assertEquals(2, tooLong);
+        EslMessage response = channel.readInbound();
+        assertEquals(EslHeaders.Value.API_RESPONSE, response.getContentType());
+        assertTrue(response.isTruncated());
+        assertTrue(response.getBodyLines().isEmpty());
+        // the event is dropped without its body
+        assertEquals(EslHeaders.Value.COMMAND_REPLY, ((EslMessage) channel.readInbound()).getContentType());
+        assertNull(channel.readInbound());
+    }
+
+    private static List<EslMessage> decode(ChannelHandler decoder, int chunkSize) {
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        for (int i = 0; i < STREAM.length; i += chunkSize) {
+            channel.writeInbound(Unpooled.wrappedBuffer(STREAM, i, Math.min(chunkSize, STREAM.length - i)));
+        }
+        List<EslMessage> messages = new ArrayList<>();
+        for (Object msg = channel.readInbound(); msg != null; msg = channel.readInbound()) {
+            messages.add((EslMessage) msg);
+        }
+        channel.finishAndReleaseAll();
+        return messages;
+    }
+
+    private static void assertSameMessages(List<EslMessage> expected, List<EslMessage> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getHeaders(), actual.get(i).getHeaders());
+            assertEquals(expected.get(i).getBodyLines(), actual.get(i).getBodyLines());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.message;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+
+/**
+ * <p>EslMessageCodecTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class EslMessageCodecTest extends TestCase {
+
+    /**
+     * <p>testRoundTrip.</p>
+     */
+    public void testRoundTrip() {
+        byte[][] frames = {
+                EslSamples.plainEventFrame(EslSamples.CHANNEL_CREATE),
+                EslSamples.apiResponseFrame("+OK accepted\n\nsecond line\n"),
+                EslSamples.commandReplyFrame("+OK event listener enabled plain")
+        };
+        for (byte[] frame : frames) {
+            for (boolean retainEventBody : new boolean[]{false, true}) {
+                EslMessage expected = EslSamples.decode(frame, retainEventBody);
+                ByteBuf out = Unpooled.buffer();
+                EslMessageCodec.encode(expected, out);
+                EslMessage actual = EslMessageCodec.decode(out);
+                assertFalse(out.isReadable());
+                assertEquals(expected.getHeaders(), actual.getHeaders());
+                assertEquals(expected.getBodyLines(), actual.getBodyLines());
+                assertEquals(expected.isChunked(), actual.isChunked());
+                if (actual.hasRawBody()) {
+                    // the body is a retained slice of the input, not a copy
+                    assertSame(out, actual.getRawBody().unwrap());
+                    assertEquals(2, out.refCnt());
+                }
+                assertTrue(actual.release());
+                assertEquals(1, out.refCnt());
+                expected.release();
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@ package link.thingscloud.freeswitch.esl.transport.util;
 
 import junit.framework.TestCase;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * <p>ByteBuilderTest class.</p>
  *
@@ -41,5 +43,14 @@ public class ByteBuilderTest extends TestCase {
      * <p>testString.</p>
      */
     public void testString() {
+        ByteBuilder builder = ByteBuilder.newBuilder();
+        for (byte b : "Event-Name: CHANNEL_CREATE".getBytes(StandardCharsets.US_ASCII)) {
+            builder.append(b);
+        }
+        assertEquals("Event-Name: CHANNEL_CREATE", builder.string());
+        for (byte b : " \u4f60\u597d".getBytes(StandardCharsets.UTF_8)) {
+            builder.append(b);
+        }
+        assertEquals("Event-Name: CHANNEL_CREATE \u4f60\u597d", builder.string());
     }
 }
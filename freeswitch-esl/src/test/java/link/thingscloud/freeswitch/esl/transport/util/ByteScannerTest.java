@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>ByteScannerTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class ByteScannerTest extends TestCase {
+
+    /**
+     * <p>testIndexOf.</p>
+     */
+    public void testIndexOf() {
+        // every position of the byte within and around a word, against the byte by byte search
+        for (int length = 0; length < 40; length++) {
+            for (int at = -1; at < length; at++) {
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    // neighbours of the searched value
+                    bytes[i] = (byte) (i % 2 == 0 ? 9 : 11);
+                }
+                if (at >= 0) {
+                    bytes[at] = '\n';
+                }
+                ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+                for (int from = 0; from <= length; from++) {
+                    assertEquals(buffer.indexOf(from, length, (byte) '\n'),
+                            ByteScanner.indexOf(buffer, from, length, (byte) '\n'));
+                    assertEquals(buffer.indexOf(length, from, (byte) '\n'),
+                            ByteScanner.lastIndexOf(buffer, from, length, (byte) '\n'));
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>testMultipleMatches.</p>
+     */
+    public void testMultipleMatches() {
+        ByteBuf buffer = Unpooled.wrappedBuffer("a:b:\u00ffc:\n\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals(1, ByteScanner.indexOf(buffer, 0, buffer.writerIndex(), (byte) ':'));
+        assertEquals(6, ByteScanner.lastIndexOf(buffer, 0, buffer.writerIndex(), (byte) ':'));
+        assertEquals(4, ByteScanner.indexOf(buffer, 0, buffer.writerIndex(), (byte) 0xFF));
+        assertEquals(8, ByteScanner.lastIndexOf(buffer, 0, buffer.writerIndex(), (byte) '\n'));
+        assertEquals(-1, ByteScanner.indexOf(buffer, 0, buffer.writerIndex(), (byte) 0x7F));
+    }
+
+    /**
+     * <p>testSplitHeader.</p>
+     */
+    public void testSplitHeader() {
+        String[] lines = {
+                "Content-Type: text/event-plain",
+                "  Content-Length :  42 \t",
+                "Reply-Text:",
+                "Caller-Caller-ID-Name: \u5f20\u4e09",
+                "No-Colon-Header",
+        };
+        for (String line : lines) {
+            byte[] bytes = ("x" + line + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+            String[] parts = HeaderParser.splitHeader(buffer, 1, bytes.length - 2);
+            String[] expected = HeaderParser.splitHeader(line);
+            assertEquals(expected[0], parts[0]);
+            assertEquals(expected[1], parts[1]);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>ByteStringsTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class ByteStringsTest extends TestCase {
+
+    /**
+     * <p>testAscii.</p>
+     */
+    public void testAscii() {
+        byte[] bytes = "Content-Type: text/event-plain".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("text/event-plain", ByteStrings.decode(bytes, 14, 16));
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        assertEquals("Content-Type", ByteStrings.decode(buffer, 0, 12));
+        assertEquals("", ByteStrings.decode(buffer, 5, 0));
+        ByteBuf direct = Unpooled.directBuffer().writeBytes(bytes);
+        assertEquals("text/event-plain", ByteStrings.decode(direct, 14, 16));
+        direct.release();
+    }
+
+    /**
+     * <p>testUtf8.</p>
+     */
+    public void testUtf8() {
+        // decoded as UTF-8 whatever file.encoding is
+        String value = "Caller-Caller-ID-Name: \u5f20\u4e09 caf\u00e9";
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        assertEquals(value, ByteStrings.decode(bytes, 0, bytes.length));
+        assertEquals(value, ByteStrings.decode(Unpooled.wrappedBuffer(bytes), 0, bytes.length));
+        assertEquals("\u5f20\u4e09 caf\u00e9", ByteStrings.decode(bytes, 23, bytes.length - 23));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package link.thingscloud.freeswitch.esl.transport.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import link.thingscloud.freeswitch.esl.transport.EslSamples;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>UrlDecoderTest class.</p>
+ *
+ * @author zhouhailin
+ */
+public class UrlDecoderTest extends TestCase {
+
+    private static final String[] VALUES = {
+            "", "CHANNEL_CREATE", "sofia/internal/1000%40192.168.1.10", "Mon,%2016%20Oct%202026%2012%3A00%3A00%20GMT",
+            "a+b", "%E4%BD%A0%E5%A5%BD", "x%E4%BD%A0y%20z", "100%25"
+    };
+
+    /**
+     * <p>testUnchanged.</p>
+     */
+    public void testUnchanged() {
+        String value = "CHANNEL_CREATE";
+        assertSame(value, UrlDecoder.decode(value));
+    }
+
+    /**
+     * <p>testSameAsUrlDecoder.</p>
+     *
+     * @throws java.lang.Exception if any.
+     */
+    public void testSameAsUrlDecoder() throws Exception {
+        for (String value : VALUES) {
+            String expected = URLDecoder.decode(value, "UTF-8");
+            assertEquals(expected, UrlDecoder.decode(value));
+            ByteBuf buffer = Unpooled.wrappedBuffer(("X" + value + "X").getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, UrlDecoder.decode(buffer, 1, buffer.readableBytes() - 2));
+        }
+    }
+
+    /**
+     * <p>testSamples.</p>
+     *
+     * @throws java.lang.Exception if any.
+     */
+    public void testSamples() throws Exception {
+        for (String resource : new String[]{EslSamples.CHANNEL_CREATE, EslSamples.CHANNEL_HANGUP_COMPLETE}) {
+            for (String line : new String(EslSamples.eventBody(resource), StandardCharsets.UTF_8).split("\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    String value = line.substring(colon + 1).trim();
+                    assertEquals(URLDecoder.decode(value, "UTF-8"), UrlDecoder.decode(value));
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>testMalformed.</p>
+     */
+    public void testMalformed() {
+        for (String value : new String[]{"100%", "100%2", "%zz", "a+%g1"}) {
+            assertSame(value, UrlDecoder.decode(value));
+            ByteBuf buffer = Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+            assertEquals(value, UrlDecoder.decode(buffer, 0, buffer.readableBytes()));
+        }
+    }
+}